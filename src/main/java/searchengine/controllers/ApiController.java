@@ -7,8 +7,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import searchengine.dto.api_response.ApiResponse;
 import searchengine.dto.api_search.ApiSearchResponse;
+import searchengine.dto.metrics.MetricsResponse;
 import searchengine.dto.statistics.StatisticsResponse;
 import searchengine.services.interfaces.IndexingService;
+import searchengine.services.interfaces.MetricsService;
 import searchengine.services.interfaces.SearchService;
 import searchengine.services.interfaces.StatisticsService;
 
@@ -20,15 +22,21 @@ import java.nio.charset.StandardCharsets;
 @RequestMapping("/api")
 public class ApiController {
 
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_RESULT_WINDOW = 1000;
+
     private final StatisticsService statisticsService;
     private final IndexingService indexingService;
     private final SearchService searchService;
+    private final MetricsService metricsService;
 
     @Autowired
-    public ApiController(StatisticsService statisticsService, IndexingService indexingService, SearchService searchService) {
+    public ApiController(StatisticsService statisticsService, IndexingService indexingService, SearchService searchService,
+                         MetricsService metricsService) {
         this.statisticsService = statisticsService;
         this.indexingService = indexingService;
         this.searchService = searchService;
+        this.metricsService = metricsService;
     }
 
     @GetMapping("/statistics")
@@ -36,9 +44,15 @@ public class ApiController {
         return ResponseEntity.ok(statisticsService.getStatistics());
     }
 
+    @GetMapping("/metrics")
+    public ResponseEntity<MetricsResponse> metrics() {
+        return ResponseEntity.ok(metricsService.getMetrics());
+    }
+
     @GetMapping("/startIndexing")
-    public ResponseEntity<ApiResponse> startIndexing() {
-        return indexingService.startIndexing();
+    public ResponseEntity<ApiResponse> startIndexing(@RequestParam(value = "incremental", required = false,
+            defaultValue = "false") boolean incremental) {
+        return indexingService.startIndexing(incremental);
     }
 
     @GetMapping("/stopIndexing")
@@ -54,8 +68,8 @@ public class ApiController {
     @GetMapping("/search")
     public ResponseEntity<ApiSearchResponse> search(@RequestParam(value = "query", required = false) String query,
                                                     @RequestParam(value = "site", required = false) String url,
-                                                    @RequestParam(value = "offset", required = false) Integer offset,
-                                                    @RequestParam(value = "limit", required = false) Integer limit) {
+                                                    @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                                    @RequestParam(value = "limit", defaultValue = "20") int limit) {
         log.info("Query: " + query + ", url: " + url + ", offset: " + offset + ", limit: " + limit);
         if(url == null || url.isEmpty()) {
             url = "";
@@ -63,6 +77,14 @@ public class ApiController {
         else {
             url = URLDecoder.decode(url, StandardCharsets.UTF_8);
         }
-            return ResponseEntity.ok(searchService.search(query, url, offset, limit).getBody());
+        offset = Math.max(0, offset);
+        limit = Math.min(Math.max(0, limit), MAX_LIMIT);
+        if ((long) offset + limit > MAX_RESULT_WINDOW) {
+            ApiSearchResponse apiSearchResponse = new ApiSearchResponse();
+            apiSearchResponse.setResult(false);
+            apiSearchResponse.setMessageError("Results beyond " + MAX_RESULT_WINDOW + " are not available");
+            return ResponseEntity.ok(apiSearchResponse);
+        }
+        return ResponseEntity.ok(searchService.search(query, url, offset, limit).getBody());
         }
     }
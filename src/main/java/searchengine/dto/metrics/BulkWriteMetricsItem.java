@@ -0,0 +1,11 @@
+package searchengine.dto.metrics;
+
+import lombok.Data;
+
+@Data
+public class BulkWriteMetricsItem {
+    private String table;
+    private long rows;
+    private long batches;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,15 @@
+package searchengine.dto.metrics;
+
+import lombok.Data;
+
+@Data
+public class CacheMetricsItem {
+    private String name;
+    private int size;
+    private int capacity;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private double hitRate;
+}
@@ -0,0 +1,11 @@
+package searchengine.dto.metrics;
+
+import lombok.Data;
+
+@Data
+public class CompressionMetricsItem {
+    private long pages;
+    private long rawBytes;
+    private long compressedBytes;
+    private double ratio;
+}
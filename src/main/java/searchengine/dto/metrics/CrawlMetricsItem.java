@@ -0,0 +1,16 @@
+package searchengine.dto.metrics;
+
+import lombok.Data;
+
+@Data
+public class CrawlMetricsItem {
+    private String url;
+    private int concurrencyLimit;
+    private int inFlight;
+    private int queued;
+    private long pagesProcessed;
+    private long averageLatency;
+    private double overloadRate;
+    private long requestInterval;
+    private long crawlDelay;
+}
@@ -0,0 +1,15 @@
+package searchengine.dto.metrics;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MetricsResponse {
+    private boolean result;
+    private List<CrawlMetricsItem> crawl;
+    private List<CacheMetricsItem> caches;
+    private List<PipelineStageMetricsItem> pipeline;
+    private List<BulkWriteMetricsItem> bulkWrites;
+    private CompressionMetricsItem contentCompression;
+}
@@ -0,0 +1,15 @@
+package searchengine.dto.metrics;
+
+import lombok.Data;
+
+@Data
+public class PipelineStageMetricsItem {
+    private String name;
+    private int threads;
+    private int active;
+    private int queued;
+    private long processed;
+    private long failed;
+    private double throughput;
+    private double utilization;
+}
@@ -0,0 +1,20 @@
+package searchengine.model;
+
+import searchengine.util.PageContentCodec;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+@Converter
+public class CompressedContentConverter implements AttributeConverter<String, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(String content) {
+        return PageContentCodec.compress(content);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        return PageContentCodec.decompress(stored);
+    }
+}
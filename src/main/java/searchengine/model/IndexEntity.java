@@ -4,8 +4,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import org.hibernate.annotations.OnDelete;
-import org.hibernate.annotations.OnDeleteAction;
 
 import javax.persistence.*;
 
@@ -13,23 +11,28 @@ import javax.persistence.*;
 @NoArgsConstructor
 @RequiredArgsConstructor
 @Entity
-@Table(name = "indexes_table")
+@Table(name = "indexes_table", indexes = {
+        @Index(name = "idx_index_lemma_page", columnList = "lemma_id, page_id, rank_lemmas"),
+        @Index(name = "idx_index_page_lemma", columnList = "page_id, lemma_id") })
 public class IndexEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
 
+    @Column(name = "site_id", nullable = false)
+    private int siteId;
+
     @NonNull
     @ManyToOne
-    @JoinColumn(name = "page_id", referencedColumnName = "id", nullable = false, foreignKey = @ForeignKey(name = "fk_page_id"))
-    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "page_id", referencedColumnName = "id", nullable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private PageEntity page;
 
     @NonNull
     @ManyToOne
-    @JoinColumn(name = "lemma_id", referencedColumnName = "id", nullable = false, foreignKey = @ForeignKey(name = "fk_lemma_id"))
-    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "lemma_id", referencedColumnName = "id", nullable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private LemmaEntity lemma;
 
     @NonNull
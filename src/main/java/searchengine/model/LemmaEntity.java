@@ -1,8 +1,6 @@
 package searchengine.model;
 
 import lombok.*;
-import org.hibernate.annotations.OnDelete;
-import org.hibernate.annotations.OnDeleteAction;
 
 import javax.persistence.*;
 import java.util.List;
@@ -11,7 +9,9 @@ import java.util.List;
 @RequiredArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "lemmas")
+@Table(name = "lemmas", indexes = @Index(name = "idx_lemmas_lemma_frequency", columnList = "lemma, frequency"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_lemmas_site_lemma",
+        columnNames = { "site_id", "lemma" }))
 public class LemmaEntity {
 
     @Id
@@ -19,13 +19,13 @@ public class LemmaEntity {
     private long id;
 
     @NonNull
-    @Column(name = "lemma", nullable = false)
+    @Column(name = "lemma", nullable = false, columnDefinition = "varchar(255) COLLATE utf8mb4_bin")
     private String lemma;
 
     @NonNull
     @ManyToOne
-    @JoinColumn(name = "site_id", referencedColumnName = "id", nullable = false)
-    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "site_id", referencedColumnName = "id", nullable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private SiteEntity site;
 
     @NonNull
@@ -1,6 +1,7 @@
 package searchengine.model;
 
 import lombok.*;
+import searchengine.util.PageText;
 
 import javax.persistence.*;
 import java.util.List;
@@ -9,17 +10,20 @@ import java.util.List;
 @NoArgsConstructor
 @RequiredArgsConstructor
 @Entity
-@Table(name = "pages", indexes = @Index(name = "idx_indexes_page_id", columnList = "path"),
-        uniqueConstraints = { @UniqueConstraint(columnNames = { "path", "site_id" }) })
+@Table(name = "pages", indexes = {
+        @Index(name = "idx_indexes_page_id", columnList = "path"),
+        @Index(name = "idx_pages_site_simhash", columnList = "site_id, simhash") },
+        uniqueConstraints = { @UniqueConstraint(name = "uk_pages_path_site", columnNames = { "path", "site_id" }) })
 public class PageEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
 
     @NonNull
     @ManyToOne(cascade = CascadeType.MERGE)
-    @JoinColumn(name = "site_id", referencedColumnName = "id", nullable = false)
+    @JoinColumn(name = "site_id", referencedColumnName = "id", nullable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private SiteEntity site;
 
     @NonNull
@@ -30,9 +34,31 @@ public class PageEntity {
     @Column(name = "code", nullable = false)
     private int code;
 
-    @Column(columnDefinition = "LONGTEXT")
+    @Convert(converter = CompressedContentConverter.class)
+    @Column(columnDefinition = "LONGBLOB")
     private String content;
 
+    @Column(name = "title", length = PageText.MAX_TITLE_LENGTH)
+    private String title;
+
+    @Column(name = "text", columnDefinition = "LONGTEXT")
+    private String text;
+
+    @Column(name = "etag")
+    private String etag;
+
+    @Column(name = "last_modified", length = 64)
+    private String lastModified;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "simhash")
+    private Long simhash;
+
+    @Column(name = "duplicate_of")
+    private Integer duplicateOf;
+
     @OneToMany(mappedBy = "page", cascade = CascadeType.ALL)
     private List<IndexEntity> indexEntities;
 
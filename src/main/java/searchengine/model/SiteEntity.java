@@ -10,7 +10,7 @@ import java.util.List;
 @Entity
 @Getter
 @Setter
-@Table(name = "site")
+@Table(name = "site", indexes = @Index(name = "idx_site_url_generation", columnList = "url, generation"))
 public class SiteEntity {
 
     @Id
@@ -33,6 +33,12 @@ public class SiteEntity {
     @Column(name = "name", nullable = false)
     private String name;
 
+    @Column(name = "generation", nullable = false)
+    private int generation = 1;
+
+    @Column(name = "live", nullable = false)
+    private boolean live;
+
     @OneToMany(mappedBy = "site", cascade = CascadeType.MERGE)
     private List<PageEntity> pages;
 
@@ -1,23 +1,35 @@
 package searchengine.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.IndexEntity;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface IndexRepository extends JpaRepository<IndexEntity, Integer> {
 
-    @Query(value = "SELECT page_id FROM indexes_table WHERE lemma_id IN " +
-            "(SELECT id FROM lemmas WHERE lemma = :lemmaIds)", nativeQuery = true)
-    List<Integer> findPagesIdByLemmaIdIn(@Param("lemmaIds") String lemmaIds);
+    @Query(value = "SELECT page_id, rank_lemmas FROM indexes_table WHERE site_id = :siteId AND lemma_id = :lemmaId " +
+            "ORDER BY page_id", nativeQuery = true)
+    List<Object[]> findPostingsByLemmaId(@Param("siteId") int siteId, @Param("lemmaId") long lemmaId);
 
-    @Query(value = "SELECT * FROM indexes_table WHERE lemma_id = :lemmaIds" +
-            " and page_id IN :pages", nativeQuery = true)
-    List<IndexEntity> findPagesIdByLemmaIdInIsPageList(@Param("lemmaIds") long lemma,
-                                         @Param("pages") List<Integer> pages);
+    @Query(value = "SELECT page_id, rank_lemmas FROM indexes_table WHERE site_id = :siteId AND lemma_id = :lemmaId " +
+            "AND page_id IN (:pageIds) ORDER BY page_id", nativeQuery = true)
+    List<Object[]> findPostingsByLemmaIdAndPageIds(@Param("siteId") int siteId, @Param("lemmaId") long lemmaId,
+                                                   @Param("pageIds") Collection<Integer> pageIds);
+
+    @Query(value = "SELECT l.lemma FROM indexes_table i JOIN lemmas l ON l.id = i.lemma_id WHERE i.page_id = :pageId",
+            nativeQuery = true)
+    List<String> findLemmasByPageId(@Param("pageId") int pageId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM indexes_table WHERE page_id = :pageId", nativeQuery = true)
+    void deleteAllByPageId(@Param("pageId") int pageId);
 
 }
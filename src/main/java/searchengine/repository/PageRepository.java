@@ -7,6 +7,9 @@ import org.springframework.stereotype.Repository;
 import searchengine.model.PageEntity;
 import searchengine.model.SiteEntity;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PageRepository extends JpaRepository<PageEntity, Integer> {
 
@@ -14,6 +17,16 @@ public interface PageRepository extends JpaRepository<PageEntity, Integer> {
 
     int countPageEntitiesBySite(SiteEntity siteEntity);
 
-    @Query(value = "SELECT COUNT(*) * :limit / 100 FROM Pages WHERE site_id = :siteId", nativeQuery = true)
+    @Query(value = "SELECT COUNT(*) * :limit / 100 FROM pages WHERE site_id = :siteId", nativeQuery = true)
     float getPageFrequencyOccurrence(@Param("limit") int limit, @Param("siteId") int siteId);
+
+    @Query(value = "SELECT id FROM pages WHERE site_id = :siteId", nativeQuery = true)
+    List<Integer> findIdsBySiteId(@Param("siteId") int siteId);
+
+    @Query(value = "SELECT id, simhash FROM pages WHERE site_id = :siteId AND simhash IS NOT NULL " +
+            "AND duplicate_of IS NULL", nativeQuery = true)
+    List<Object[]> findSimHashesBySiteId(@Param("siteId") int siteId);
+
+    @Query(value = "SELECT * FROM pages WHERE site_id = :siteId AND duplicate_of IN (:pageIds)", nativeQuery = true)
+    List<PageEntity> findDuplicatesOf(@Param("siteId") int siteId, @Param("pageIds") Collection<Integer> pageIds);
 }
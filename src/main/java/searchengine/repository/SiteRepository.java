@@ -1,6 +1,7 @@
 package searchengine.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -8,16 +9,32 @@ import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.SiteEntity;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface SiteRepository extends JpaRepository<SiteEntity, Long> {
 
-    Optional<List<SiteEntity>> findByName(String name);
+    /**
+     * Latest generation of the site, the one being indexed or the last one indexed.
+     */
+    @Query(value = "SELECT * FROM site WHERE url = :url ORDER BY generation DESC LIMIT 1", nativeQuery = true)
+    SiteEntity findSiteEntityByUrl(@Param("url") String url);
+
+    @Query(value = "SELECT * FROM site WHERE url = :url AND live = 1", nativeQuery = true)
+    SiteEntity findLiveSiteByUrl(@Param("url") String url);
+
+    @Query(value = "SELECT * FROM site WHERE live = 1", nativeQuery = true)
+    List<SiteEntity> findAllLive();
 
+    @Query(value = "SELECT id FROM site WHERE url = :url AND id <> :siteId", nativeQuery = true)
+    List<Integer> findOtherGenerationIds(@Param("url") String url, @Param("siteId") int siteId);
+
+    @Modifying
     @Transactional
-    void deleteSiteEntityByUrl(String url);
+    @Query(value = "UPDATE site SET live = (id = :siteId) WHERE url = :url", nativeQuery = true)
+    void activateGeneration(@Param("url") String url, @Param("siteId") int siteId);
 
-    @Query(value = "SELECT * FROM site WHERE url = :url", nativeQuery = true)
-    SiteEntity findSiteEntityByUrl(@Param("url") String url);
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE site SET live = 0, status = 'RETIRED' WHERE id IN :siteIds", nativeQuery = true)
+    void markGenerationsRetired(@Param("siteIds") List<Integer> siteIds);
 }
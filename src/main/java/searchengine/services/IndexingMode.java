@@ -0,0 +1,7 @@
+package searchengine.services;
+
+public enum IndexingMode {
+    FULL,
+    INCREMENTAL,
+    RESUME
+}
@@ -1,10 +1,8 @@
 package searchengine.services;
 
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
+import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
-import org.jsoup.Connection;
-import org.jsoup.UnsupportedMimeTypeException;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -12,84 +10,240 @@ import searchengine.exceptions.SiteExceptions;
 import searchengine.model.PageEntity;
 import searchengine.model.SiteEntity;
 import searchengine.model.Status;
+import searchengine.services.crawler.FetchResult;
+import searchengine.services.crawler.RobotsRules;
+import searchengine.services.indexing.PageProcessing;
+import searchengine.services.indexing.ParsedPage;
 import searchengine.services.service_impl.IndexingServiceImpl;
 import searchengine.util.ConnectionUtil;
+import searchengine.util.ContentHash;
+import searchengine.util.PageText;
 import searchengine.util.ReworkString;
+import searchengine.util.SimHash;
+import searchengine.util.UrlCanonicalizer;
 
-import java.io.IOException;
 import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.RecursiveAction;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
 
 @Log4j2
 @RequiredArgsConstructor
-public class SiteParser extends RecursiveAction {
+public class SiteParser {
 
     private final IndexingServiceImpl indexingService;
     private final SiteEntity siteEntity;
-    private final String pagePath;
+    private final IndexingMode indexingMode;
+    /**
+     * Links are checked against robots.txt as the page wrote them, before canonicalization adds a trailing slash.
+     */
+    @Setter
+    private volatile RobotsRules robotsRules = RobotsRules.ALLOW_ALL;
 
-    @SneakyThrows
-    @Override
-    protected void compute() {
+    public PageEntity findIndexedPage(String pagePath) {
+        if (indexingMode == IndexingMode.FULL) {
+            return null;
+        }
+        String pathToSave = ReworkString.cutProtocolAndHost(pagePath, siteEntity.getUrl());
+        return indexingService.findIndexedPage(pathToSave, siteEntity);
+    }
+
+    public boolean isConditionalFetch() {
+        return indexingMode == IndexingMode.INCREMENTAL;
+    }
+
+    public PageProcessing process(String pagePath, PageEntity indexedPage, FetchResult fetchResult) {
+        return indexingService.getIndexingPipeline().submit(this, pagePath, indexedPage, fetchResult);
+    }
+
+    public ParsedPage parse(String pagePath, PageEntity indexedPage, FetchResult fetchResult) {
         try {
-            Thread.sleep(500);
-            handlePageData();
-        } catch (UnsupportedMimeTypeException | ConnectException | SiteExceptions ignoredException) {
+            if (indexedPage != null && fetchResult.isNotModified()) {
+                return handleNotModifiedPage(pagePath, indexedPage);
+            }
+            return handlePageData(pagePath, indexedPage, fetchResult);
+        } catch (SiteExceptions ignoredException) {
             log.warn("WARNING " + ignoredException + " IN CONNECTION WHILE HANDLING " + pagePath);
-        } catch (Exception exception) {
-            log.warn("WARNING " + exception + " IN CONNECTION WHILE HANDLING " + pagePath +
-                    " INDEXING FOR SITE " + siteEntity.getUrl() + " COMPLETED TO FAIL");
-            indexingService.getSiteStatusMap().put(siteEntity.getUrl(), Status.FAILED);
+            return ParsedPage.linksOnly(pagePath, Collections.emptyList());
+        } catch (RuntimeException exception) {
+            failSite(pagePath, exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Stores the parsed page and tells whether its lemmas still have to be extracted.
+     */
+    public boolean persist(ParsedPage parsedPage) {
+        try {
+            PageEntity pageEntity = parsedPage.getPageEntity();
+            if (parsedPage.getReplacedPage() != null) {
+                indexingService.removePageFromIndex(parsedPage.getReplacedPage(), siteEntity);
+            }
+            boolean indexable = parsedPage.isIndexable();
+            if (indexable) {
+                int originalPageId = indexingService.findNearDuplicate(pageEntity, siteEntity);
+                if (originalPageId != 0) {
+                    pageEntity.setDuplicateOf(originalPageId);
+                    log.info("Page " + pageEntity.getPath() + " is a near-duplicate of page " + originalPageId
+                            + ", not indexed");
+                    indexable = false;
+                }
+            }
+            indexingService.savePageAndSiteStatusTime(pageEntity, parsedPage.getHtml(), siteEntity);
+            indexingService.markPageVisited(pageEntity, siteEntity);
+            if (indexable) {
+                indexingService.registerSimHash(pageEntity, siteEntity);
+            }
+            return indexable && pageEntity.getId() != 0;
+        } catch (RuntimeException exception) {
+            failSite(parsedPage.getPagePath(), exception);
             throw exception;
         }
     }
 
-    private void handlePageData() throws IOException {
+    public void lemmatize(ParsedPage parsedPage) {
+        try {
+            indexingService.extractLemmas(parsedPage.getPageEntity(), siteEntity);
+            log.info("Page indexed: " + parsedPage.getPageEntity().getPath());
+        } catch (RuntimeException exception) {
+            failSite(parsedPage.getPagePath(), exception);
+            throw exception;
+        }
+    }
+
+    public List<String> handleFetchFailure(String pagePath, Throwable throwable) throws Exception {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        if (cause instanceof ConnectException || cause instanceof HttpTimeoutException || cause instanceof SiteExceptions) {
+            log.warn("WARNING " + cause + " IN CONNECTION WHILE HANDLING " + pagePath);
+            return Collections.emptyList();
+        }
+        failSite(pagePath, cause);
+        throw cause instanceof Exception ? (Exception) cause : new Exception(cause);
+    }
+
+    private void failSite(String pagePath, Throwable exception) {
+        log.warn("WARNING " + exception + " IN CONNECTION WHILE HANDLING " + pagePath +
+                " INDEXING FOR SITE " + siteEntity.getUrl() + " COMPLETED TO FAIL");
+        indexingService.getSiteStatusMap().put(siteEntity.getUrl(), Status.FAILED);
+    }
+
+    private ParsedPage handlePageData(String pagePath, PageEntity indexedPage, FetchResult fetchResult) {
         log.info("HANDING PAGE DATA: " + pagePath);
-        List<SiteParser> pagesList = new ArrayList<>();
-        String userAgent = indexingService.getPropertiesProject().getUserAgent();
-        String referrer = indexingService.getPropertiesProject().getReferrer();
-        Connection connection = ConnectionUtil.getConnection(pagePath, userAgent, referrer);
-        int httpStatusCode = connection.execute().statusCode();
-        if (httpStatusCode != 200) {
-            connection = ConnectionUtil.getConnection(ReworkString.cutSlash(pagePath), userAgent, referrer);
-            httpStatusCode = connection.execute().statusCode();
+        if (!fetchResult.isHtml()) {
+            log.warn("WARNING unsupported content type " + fetchResult.getContentType() + " WHILE HANDLING " + pagePath);
+            return ParsedPage.linksOnly(pagePath, Collections.emptyList());
+        }
+        int httpStatusCode = fetchResult.getStatusCode();
+        String contentHash = httpStatusCode == 200 ? ContentHash.of(fetchResult.getBody()) : null;
+        if (indexedPage != null && indexingMode == IndexingMode.INCREMENTAL
+                && contentHash != null && contentHash.equals(indexedPage.getContentHash())) {
+            return handleUnchangedPage(pagePath, indexedPage, fetchResult);
         }
 
         String pathToSave = ReworkString.cutProtocolAndHost(pagePath, siteEntity.getUrl());
-        String html = "";
-        PageEntity pageEntity = new PageEntity(siteEntity, pathToSave, httpStatusCode, html);
-        if (httpStatusCode != 200) {
-            indexingService.savePageAndSiteStatusTime(pageEntity, html, siteEntity);
+        PageEntity replacedPage = indexedPage == null ? null : copyOf(indexedPage);
+        PageEntity pageEntity = indexedPage;
+        if (pageEntity == null) {
+            pageEntity = new PageEntity(siteEntity, pathToSave, httpStatusCode, "");
         } else {
-            Document document = connection.get();
-            html = document.outerHtml();
-            indexingService.savePageAndSiteStatusTime(pageEntity, html, siteEntity);
-            log.info("Page indexed: " + pathToSave);
-            indexingService.extractLemmas(html, pageEntity, siteEntity);
-            Elements anchors = document.select("body").select("a");
-            handleAnchors(anchors, pagesList);
+            pageEntity.setCode(httpStatusCode);
+        }
+        pageEntity.setEtag(fetchResult.getEtag());
+        pageEntity.setLastModified(fetchResult.getLastModified());
+        pageEntity.setContentHash(contentHash);
+        pageEntity.setDuplicateOf(null);
+        if (httpStatusCode != 200) {
+            pageEntity.setSimhash(null);
+            setPageText(pageEntity, PageText.EMPTY);
+            return new ParsedPage(pagePath, Collections.emptyList(), pageEntity, replacedPage, "", false);
+        }
+        Document document = ConnectionUtil.parse(fetchResult);
+        List<String> pagesList = new ArrayList<>();
+        handleAnchors(document.select("body").select("a"), pagesList);
+        pageEntity.setSimhash(simHashOf(document));
+        setPageText(pageEntity, PageText.of(document));
+        return new ParsedPage(pagePath, pagesList, pageEntity, replacedPage, document.outerHtml(), true);
+    }
+
+    private void setPageText(PageEntity pageEntity, PageText pageText) {
+        pageEntity.setTitle(pageText.getTitle());
+        pageEntity.setText(pageText.getText());
+    }
+
+    /**
+     * The stored page is updated in the persist stage, while its removal from the index
+     * must still see the id and fingerprint it was indexed with.
+     */
+    private PageEntity copyOf(PageEntity indexedPage) {
+        PageEntity replacedPage = new PageEntity(siteEntity, indexedPage.getPath(), indexedPage.getCode(), "");
+        replacedPage.setId(indexedPage.getId());
+        replacedPage.setSimhash(indexedPage.getSimhash());
+        return replacedPage;
+    }
+
+    /**
+     * Page chrome shared by the whole site is left out, otherwise short pages would all look alike.
+     */
+    private Long simHashOf(Document document) {
+        if (!indexingService.getPropertiesProject().isNearDuplicatesEnabled()) {
+            return null;
+        }
+        Document content = document.clone();
+        content.select("header, nav, footer, aside, script, style, noscript").remove();
+        long simHash = SimHash.of(content.body() == null ? content.text() : content.body().text());
+        return simHash == 0 ? null : simHash;
+    }
+
+    private ParsedPage handleNotModifiedPage(String pagePath, PageEntity indexedPage) {
+        log.info("Page not modified: " + indexedPage.getPath());
+        indexingService.markPageVisited(indexedPage, siteEntity);
+        List<String> pagesList = new ArrayList<>();
+        if (indexedPage.getContent() != null && !indexedPage.getContent().isEmpty()) {
+            Document document = ConnectionUtil.parse(indexedPage.getContent(), pagePath);
+            handleAnchors(document.select("body").select("a"), pagesList);
+        }
+        return ParsedPage.linksOnly(pagePath, pagesList);
+    }
+
+    private ParsedPage handleUnchangedPage(String pagePath, PageEntity indexedPage, FetchResult fetchResult) {
+        log.info("Page unchanged: " + indexedPage.getPath());
+        indexingService.markPageVisited(indexedPage, siteEntity);
+        List<String> pagesList = new ArrayList<>();
+        Document document = ConnectionUtil.parse(fetchResult);
+        handleAnchors(document.select("body").select("a"), pagesList);
+        boolean textMissing = indexedPage.getText() == null;
+        if (textMissing) {
+            setPageText(indexedPage, PageText.of(document));
         }
-        for (SiteParser siteParser : pagesList) {
-            siteParser.join();
+        if (!textMissing && Objects.equals(indexedPage.getEtag(), fetchResult.getEtag())
+                && Objects.equals(indexedPage.getLastModified(), fetchResult.getLastModified())) {
+            return ParsedPage.linksOnly(pagePath, pagesList);
         }
+        indexedPage.setEtag(fetchResult.getEtag());
+        indexedPage.setLastModified(fetchResult.getLastModified());
+        return new ParsedPage(pagePath, pagesList, indexedPage, null, indexedPage.getContent(), false);
+    }
+
+    public boolean isLinkValid(String href) {
+        return indexingService.getUrlCanonicalizer().isPageLink(siteEntity.getUrl(), href);
     }
 
-    private void handleAnchors(Elements elements, List<SiteParser> parserList) {
-        String fileExtensions = indexingService.getPropertiesProject().getFileExtensions();
+    private void handleAnchors(Elements elements, List<String> pagesList) {
+        UrlCanonicalizer urlCanonicalizer = indexingService.getUrlCanonicalizer();
         for (Element anchor : elements) {
-            String href = ReworkString.getHrefFromAnchor(anchor);
-            if (ReworkString.isHrefValid(siteEntity.getUrl(), href, fileExtensions)
-                    && !ReworkString.isPageAdded(indexingService.getWebPages(), href)) {
-                indexingService.getWebPages().add(href);
+            String absoluteUrl = anchor.absUrl("href");
+            String href = urlCanonicalizer.canonicalize(absoluteUrl);
+            if (urlCanonicalizer.isPageLink(siteEntity.getUrl(), href)
+                    && robotsRules.isAllowed(ReworkString.getPathOfUrl(absoluteUrl))) {
                 if (!indexingService.getSiteStatusMap().get(siteEntity.getUrl()).equals(Status.INDEXING)) {
                     return;
                 }
-                SiteParser siteParser = new SiteParser(indexingService, siteEntity, href);
-                parserList.add(siteParser);
-                siteParser.fork();
+                pagesList.add(href);
             }
         }
     }
@@ -0,0 +1,102 @@
+package searchengine.services.crawler;
+
+/**
+ * AIMD control of how hard one site is crawled: the number of parallel fetches and the interval
+ * between the starts of two requests. After a full window of healthy responses the limit grows by
+ * one and the interval shrinks by a fixed step down to zero, so a fast site ends up bounded by
+ * the limit alone. On 429/503, timeouts or when the smoothed latency drifts far above its baseline
+ * the limit is halved and the interval doubled, which lowers the request rate even while responses
+ * stay fast. At most one decrease happens per window, so a burst of failures of the requests
+ * already in flight does not collapse the limit straight to the minimum.
+ */
+public class AdaptiveConcurrency {
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+    private static final double BASELINE_DRIFT = 0.01;
+    private static final long MIN_INTERVAL_STEP = 25;
+    private static final long MIN_BACKOFF_INTERVAL = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final long intervalStep;
+    private final long maxInterval;
+    private int limit;
+    private long interval;
+    private int healthyInWindow;
+    private int responsesSinceDecrease;
+    private double smoothedLatency;
+    private double baselineLatency = Double.MAX_VALUE;
+    private long responses;
+    private long overloads;
+
+    public AdaptiveConcurrency(int initialLimit, int minLimit, int maxLimit, double latencyTolerance,
+                               long initialInterval, long maxInterval) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.latencyTolerance = latencyTolerance;
+        this.maxInterval = Math.max(MIN_BACKOFF_INTERVAL, maxInterval);
+        this.interval = Math.min(this.maxInterval, Math.max(0, initialInterval));
+        this.intervalStep = Math.max(MIN_INTERVAL_STEP, this.interval / 4);
+        this.responsesSinceDecrease = this.maxLimit;
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Milliseconds to keep between the starts of two requests to the site.
+     */
+    public synchronized long getInterval() {
+        return interval;
+    }
+
+    public synchronized long getAverageLatency() {
+        return Math.round(smoothedLatency);
+    }
+
+    public synchronized double getOverloadRate() {
+        return responses == 0 ? 0 : (double) overloads / responses;
+    }
+
+    public synchronized void onResponse(int statusCode, long latencyMillis) {
+        responses++;
+        responsesSinceDecrease++;
+        smoothedLatency = smoothedLatency == 0
+                ? latencyMillis
+                : smoothedLatency + LATENCY_SMOOTHING * (latencyMillis - smoothedLatency);
+        // the baseline drops at once but rises slowly, so a site that became slower for good is accepted eventually
+        baselineLatency = baselineLatency == Double.MAX_VALUE || smoothedLatency < baselineLatency
+                ? smoothedLatency
+                : baselineLatency + BASELINE_DRIFT * (smoothedLatency - baselineLatency);
+        if (statusCode == 429 || statusCode == 503) {
+            overloads++;
+            decrease();
+        } else if (smoothedLatency > baselineLatency * latencyTolerance) {
+            decrease();
+        } else if (++healthyInWindow >= limit) {
+            healthyInWindow = 0;
+            limit = Math.min(maxLimit, limit + 1);
+            interval = Math.max(0, interval - intervalStep);
+        }
+    }
+
+    public synchronized void onTimeout() {
+        responses++;
+        responsesSinceDecrease++;
+        overloads++;
+        decrease();
+    }
+
+    private void decrease() {
+        healthyInWindow = 0;
+        if (responsesSinceDecrease < limit) {
+            return;
+        }
+        responsesSinceDecrease = 0;
+        limit = Math.max(minLimit, limit / 2);
+        interval = Math.min(maxInterval, Math.max(MIN_BACKOFF_INTERVAL, interval * 2));
+    }
+}
@@ -0,0 +1,15 @@
+package searchengine.services.crawler;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class CrawlCheckpoint {
+    int siteId;
+    String siteUrl;
+    long pagesProcessed;
+    long savedAt;
+    List<CrawlTask> pendingTasks;
+    long[] seenFingerprints;
+}
@@ -0,0 +1,115 @@
+package searchengine.services.crawler;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+import searchengine.util.PropertiesProject;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Log4j2
+@Component
+public class CrawlCheckpointStore {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path directory;
+
+    public CrawlCheckpointStore(PropertiesProject propertiesProject) {
+        this.directory = Path.of(propertiesProject.getCheckpointDirectory());
+    }
+
+    public void save(CrawlCheckpoint checkpoint) {
+        Path target = fileOf(checkpoint.getSiteUrl());
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "checkpoint-", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                write(checkpoint, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Checkpoint saved for " + checkpoint.getSiteUrl() + ": " + checkpoint.getPendingTasks().size()
+                    + " pending, " + checkpoint.getSeenFingerprints().length + " seen, "
+                    + checkpoint.getPagesProcessed() + " processed");
+        } catch (IOException e) {
+            log.warn("Checkpoint for " + checkpoint.getSiteUrl() + " could not be saved due to " + e);
+        }
+    }
+
+    public Optional<CrawlCheckpoint> load(String siteUrl) {
+        Path file = fileOf(siteUrl);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            return Optional.of(read(in));
+        } catch (IOException e) {
+            log.warn("Checkpoint for " + siteUrl + " could not be read due to " + e);
+            return Optional.empty();
+        }
+    }
+
+    public boolean exists(String siteUrl) {
+        return Files.exists(fileOf(siteUrl));
+    }
+
+    public void delete(String siteUrl) {
+        try {
+            Files.deleteIfExists(fileOf(siteUrl));
+        } catch (IOException e) {
+            log.warn("Checkpoint for " + siteUrl + " could not be deleted due to " + e);
+        }
+    }
+
+    private Path fileOf(String siteUrl) {
+        return directory.resolve(URI.create(siteUrl).getHost() + ".checkpoint");
+    }
+
+    private static void write(CrawlCheckpoint checkpoint, DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(checkpoint.getSiteId());
+        out.writeUTF(checkpoint.getSiteUrl());
+        out.writeLong(checkpoint.getPagesProcessed());
+        out.writeLong(checkpoint.getSavedAt());
+        out.writeInt(checkpoint.getPendingTasks().size());
+        for (CrawlTask task : checkpoint.getPendingTasks()) {
+            out.writeUTF(task.getUrl());
+            out.writeInt(task.getDepth());
+        }
+        out.writeInt(checkpoint.getSeenFingerprints().length);
+        for (long fingerprint : checkpoint.getSeenFingerprints()) {
+            out.writeLong(fingerprint);
+        }
+    }
+
+    private static CrawlCheckpoint read(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported checkpoint format " + version);
+        }
+        int siteId = in.readInt();
+        String siteUrl = in.readUTF();
+        long pagesProcessed = in.readLong();
+        long savedAt = in.readLong();
+        int pendingCount = in.readInt();
+        List<CrawlTask> pendingTasks = new ArrayList<>(pendingCount);
+        for (int i = 0; i < pendingCount; i++) {
+            pendingTasks.add(new CrawlTask(in.readUTF(), in.readInt(), i));
+        }
+        long[] seenFingerprints = new long[in.readInt()];
+        for (int i = 0; i < seenFingerprints.length; i++) {
+            seenFingerprints[i] = in.readLong();
+        }
+        return new CrawlCheckpoint(siteId, siteUrl, pagesProcessed, savedAt, pendingTasks, seenFingerprints);
+    }
+}
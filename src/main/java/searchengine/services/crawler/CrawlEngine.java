@@ -0,0 +1,116 @@
+package searchengine.services.crawler;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+import searchengine.model.SiteEntity;
+import searchengine.services.SiteParser;
+import searchengine.util.PropertiesProject;
+import searchengine.util.UrlCanonicalizer;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Log4j2
+@Component
+public class CrawlEngine {
+
+    private final PropertiesProject propertiesProject;
+    private final PageFetcher pageFetcher;
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService workers;
+    private final PolitenessScheduler politeness;
+    private final SiteBootstrapper bootstrapper;
+    private final Set<SiteCrawler> crawlers = ConcurrentHashMap.newKeySet();
+
+    public CrawlEngine(PropertiesProject propertiesProject, PageFetcher pageFetcher, UrlCanonicalizer urlCanonicalizer) {
+        this.propertiesProject = propertiesProject;
+        this.pageFetcher = pageFetcher;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(namedThreads("crawl-dispatcher"));
+        this.workers = Executors.newFixedThreadPool(propertiesProject.getCrawlerWorkerThreads(), namedThreads("crawl-worker"));
+        this.politeness = new PolitenessScheduler(propertiesProject.getInitialRequestInterval());
+        this.bootstrapper = new SiteBootstrapper(propertiesProject, pageFetcher, politeness, urlCanonicalizer);
+        long checkpointInterval = propertiesProject.getCheckpointInterval();
+        if (checkpointInterval > 0) {
+            dispatcher.scheduleWithFixedDelay(() -> crawlers.forEach(SiteCrawler::checkpoint),
+                    checkpointInterval, checkpointInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Crawls the site from its home page and sitemaps, or from the checkpoint when one is passed.
+     * The checkpoint handler receives periodic snapshots of the crawl state on a worker thread.
+     */
+    public CompletableFuture<Void> crawl(SiteEntity siteEntity, SiteParser siteParser, CrawlCheckpoint resumeFrom,
+                                         Consumer<CrawlCheckpoint> checkpointHandler) {
+        SeenUrlSet seenUrls = new SeenUrlSet(propertiesProject.getSeenUrlsMaxInMemory(),
+                propertiesProject.isSeenUrlsBloomFilter(), propertiesProject.getSeenUrlsSpillCapacity(), Path.of(propertiesProject.getSeenUrlsSpillDirectory()));
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(propertiesProject.getInitialConcurrencyPerSite(), 1,
+                propertiesProject.getMaxConcurrencyPerSite(), propertiesProject.getLatencyTolerance(),
+                propertiesProject.getInitialRequestInterval(), propertiesProject.getMaxRequestInterval());
+        SiteCrawler crawler = new SiteCrawler(siteEntity, siteParser, pageFetcher, seenUrls, politeness, dispatcher,
+                workers, concurrency, checkpointHandler);
+        crawlers.add(crawler);
+        log.info("Crawl started for " + siteEntity.getUrl());
+        CompletableFuture<Void> completion = resumeFrom == null
+                ? crawler.start(siteEntity.getUrl(), bootstrapper.bootstrap(siteEntity.getUrl(), true))
+                : crawler.resume(resumeFrom, bootstrapper.bootstrap(siteEntity.getUrl(), false));
+        return completion.whenComplete((ignored, throwable) -> {
+            crawlers.remove(crawler);
+            crawler.close();
+        });
+    }
+
+    public Executor getWorkers() {
+        return workers;
+    }
+
+    public List<SiteCrawler> getCrawlers() {
+        return new ArrayList<>(crawlers);
+    }
+
+    public long getCrawlDelay(String host) {
+        return politeness.getCrawlDelay(host);
+    }
+
+    public void stop(long timeout, TimeUnit unit) {
+        List<SiteCrawler> stopping = new ArrayList<>(crawlers);
+        stopping.forEach(SiteCrawler::stop);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (stopping.stream().anyMatch(crawler -> crawler.isActive() || crawler.getPending() > 0)
+                && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stop(10, TimeUnit.SECONDS);
+        dispatcher.shutdownNow();
+        workers.shutdown();
+        try {
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
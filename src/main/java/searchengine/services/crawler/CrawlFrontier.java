@@ -0,0 +1,42 @@
+package searchengine.services.crawler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CrawlFrontier {
+
+    private static final Comparator<CrawlTask> BREADTH_FIRST = Comparator
+            .comparingInt(CrawlTask::getDepth)
+            .thenComparingLong(CrawlTask::getSequence);
+
+    private final Queue<CrawlTask> queue = new PriorityBlockingQueue<>(256, BREADTH_FIRST);
+    private final AtomicLong sequence = new AtomicLong();
+
+    public void offer(String url, int depth) {
+        queue.offer(new CrawlTask(url, depth, sequence.getAndIncrement()));
+    }
+
+    public CrawlTask poll() {
+        return queue.poll();
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public List<CrawlTask> snapshot() {
+        return new ArrayList<>(queue);
+    }
+
+    public void clear() {
+        queue.clear();
+    }
+}
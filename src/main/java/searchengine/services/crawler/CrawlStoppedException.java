@@ -0,0 +1,16 @@
+package searchengine.services.crawler;
+
+import lombok.Getter;
+
+import java.util.concurrent.CancellationException;
+
+@Getter
+public class CrawlStoppedException extends CancellationException {
+
+    private final transient CrawlCheckpoint checkpoint;
+
+    public CrawlStoppedException(String message, CrawlCheckpoint checkpoint) {
+        super(message);
+        this.checkpoint = checkpoint;
+    }
+}
@@ -0,0 +1,10 @@
+package searchengine.services.crawler;
+
+import lombok.Value;
+
+@Value
+public class CrawlTask {
+    String url;
+    int depth;
+    long sequence;
+}
@@ -0,0 +1,32 @@
+package searchengine.services.crawler;
+
+import lombok.Value;
+
+import java.util.Locale;
+
+@Value
+public class FetchResult {
+    String url;
+    int statusCode;
+    String contentType;
+    String charset;
+    String etag;
+    String lastModified;
+    byte[] body;
+
+    public boolean isNotModified() {
+        return statusCode == 304;
+    }
+
+    public boolean isHtml() {
+        return isHtmlType(contentType);
+    }
+
+    public static boolean isHtmlType(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/html") || type.startsWith("application/xhtml+xml");
+    }
+}
@@ -0,0 +1,95 @@
+package searchengine.services.crawler;
+
+import searchengine.exceptions.SiteExceptions;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Collects a response body while it streams in and cancels the exchange as soon as
+ * the body grows over the limit, so the rest of it is never downloaded.
+ * Subscribers created by {@link #discarding()} and {@link #rejecting(String)} cancel right away,
+ * yielding an empty body or failing with the given reason.
+ */
+class LimitedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final long maxBytes;
+    private final String url;
+    private final String rejection;
+    private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private Flow.Subscription subscription;
+
+    private LimitedBodySubscriber(long maxBytes, String url, String rejection) {
+        this.maxBytes = maxBytes;
+        this.url = url;
+        this.rejection = rejection;
+    }
+
+    static LimitedBodySubscriber limited(long maxBytes, String url) {
+        return new LimitedBodySubscriber(maxBytes, url, null);
+    }
+
+    static LimitedBodySubscriber discarding() {
+        return new LimitedBodySubscriber(-1, null, null);
+    }
+
+    static LimitedBodySubscriber rejecting(String reason) {
+        return new LimitedBodySubscriber(-1, null, reason);
+    }
+
+    @Override
+    public CompletionStage<byte[]> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (rejection != null) {
+            subscription.cancel();
+            body.completeExceptionally(new SiteExceptions(rejection));
+            return;
+        }
+        if (maxBytes < 0) {
+            subscription.cancel();
+            body.complete(EMPTY);
+            return;
+        }
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        if (body.isDone()) {
+            return;
+        }
+        for (ByteBuffer item : items) {
+            if (buffer.size() + (long) item.remaining() > maxBytes) {
+                subscription.cancel();
+                body.completeExceptionally(new SiteExceptions("Response body of " + url + " exceeds " + maxBytes + " bytes"));
+                return;
+            }
+            byte[] bytes = new byte[item.remaining()];
+            item.get(bytes);
+            buffer.write(bytes, 0, bytes.length);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        body.complete(buffer.toByteArray());
+    }
+}
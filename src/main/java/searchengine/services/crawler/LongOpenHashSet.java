@@ -0,0 +1,69 @@
+package searchengine.services.crawler;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Open addressing set of non-zero longs. Not thread safe, callers guard it.
+ */
+class LongOpenHashSet {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] table;
+    private int mask;
+    private int size;
+
+    LongOpenHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        table = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    boolean add(long value) {
+        int index = indexOf(value, table, mask);
+        if (table[index] == value) {
+            return false;
+        }
+        table[index] = value;
+        if (++size > table.length * LOAD_FACTOR) {
+            grow();
+        }
+        return true;
+    }
+
+    boolean contains(long value) {
+        return table[indexOf(value, table, mask)] == value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(LongConsumer consumer) {
+        for (long value : table) {
+            if (value != 0) {
+                consumer.accept(value);
+            }
+        }
+    }
+
+    private void grow() {
+        long[] grown = new long[table.length << 1];
+        int grownMask = grown.length - 1;
+        for (long value : table) {
+            if (value != 0) {
+                grown[indexOf(value, grown, grownMask)] = value;
+            }
+        }
+        table = grown;
+        mask = grownMask;
+    }
+
+    private static int indexOf(long value, long[] table, int mask) {
+        int index = (int) (value ^ (value >>> 32)) & mask;
+        while (table[index] != 0 && table[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,157 @@
+package searchengine.services.crawler;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+import searchengine.exceptions.SiteExceptions;
+import searchengine.util.PropertiesProject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPInputStream;
+
+@Log4j2
+@Component
+public class PageFetcher {
+
+    private final PropertiesProject propertiesProject;
+    private final HttpClient httpClient;
+
+    public PageFetcher(PropertiesProject propertiesProject) {
+        this.propertiesProject = propertiesProject;
+        this.httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(propertiesProject.getRequestTimeout()))
+                .build();
+    }
+
+    public CompletableFuture<FetchResult> fetch(String pageUrl) {
+        return fetch(pageUrl, null, null);
+    }
+
+    /**
+     * Fetches a resource other than a page, such as robots.txt or a sitemap: any content type, same size cap.
+     */
+    public CompletableFuture<FetchResult> fetchResource(String resourceUrl) {
+        return send(resourceUrl, null, null, false);
+    }
+
+    /**
+     * Bodies of non-HTML responses are never downloaded, bodies over the size cap are cut off and fail the fetch.
+     */
+    public CompletableFuture<FetchResult> fetch(String pageUrl, String etag, String lastModified) {
+        return send(pageUrl, etag, lastModified, true);
+    }
+
+    private CompletableFuture<FetchResult> send(String pageUrl, String etag, String lastModified, boolean htmlOnly) {
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(toUri(pageUrl))
+                    .timeout(Duration.ofMillis(propertiesProject.getRequestTimeout()))
+                    .header("User-Agent", propertiesProject.getUserAgent())
+                    .header("Referer", propertiesProject.getReferrer())
+                    .header("Accept", "text/html,application/xhtml+xml;q=0.9,*/*;q=0.8")
+                    .header("Accept-Encoding", "gzip");
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
+            request = builder.GET().build();
+        } catch (SiteExceptions | IllegalArgumentException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+        return httpClient.sendAsync(request, bodyHandler(pageUrl, htmlOnly))
+                .thenApply(this::toFetchResult);
+    }
+
+    private HttpResponse.BodyHandler<byte[]> bodyHandler(String pageUrl, boolean htmlOnly) {
+        long maxBodySize = propertiesProject.getMaxBodySize();
+        return responseInfo -> {
+            HttpHeaders headers = responseInfo.headers();
+            if (htmlOnly && !FetchResult.isHtmlType(headers.firstValue("Content-Type").orElse(null))) {
+                return LimitedBodySubscriber.discarding();
+            }
+            long contentLength = headers.firstValueAsLong("Content-Length").orElse(-1);
+            if (contentLength > maxBodySize) {
+                return LimitedBodySubscriber.rejecting("Response body of " + pageUrl + " is " + contentLength
+                        + " bytes, limit is " + maxBodySize);
+            }
+            return LimitedBodySubscriber.limited(maxBodySize, pageUrl);
+        };
+    }
+
+    public FetchResult fetchNow(String pageUrl) {
+        try {
+            return fetch(pageUrl).join();
+        } catch (CompletionException exception) {
+            throw new SiteExceptions("Connection request failed for " + pageUrl + " (" + exception.getCause() + ")");
+        }
+    }
+
+    private FetchResult toFetchResult(HttpResponse<byte[]> response) {
+        String contentType = response.headers().firstValue("Content-Type").orElse(null);
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        byte[] body = response.body();
+        if (encoding.equalsIgnoreCase("gzip")) {
+            body = gunzip(body, propertiesProject.getMaxBodySize());
+        }
+        return new FetchResult(response.uri().toString(), response.statusCode(), contentType, charsetOf(contentType),
+                etag, lastModified, body);
+    }
+
+    static byte[] gunzip(byte[] body, long maxBytes) {
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            byte[] unpacked = inputStream.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxBytes + 1));
+            if (unpacked.length > maxBytes) {
+                throw new SiteExceptions("Decompressed response body exceeds " + maxBytes + " bytes");
+            }
+            return unpacked;
+        } catch (IOException e) {
+            throw new SiteExceptions("Response body could not be decompressed");
+        }
+    }
+
+    private static String charsetOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int index = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (index < 0) {
+            return null;
+        }
+        String charset = contentType.substring(index + "charset=".length()).trim();
+        int end = charset.indexOf(';');
+        charset = end < 0 ? charset : charset.substring(0, end);
+        return charset.replace("\"", "").trim();
+    }
+
+    private static URI toUri(String pageUrl) {
+        try {
+            return URI.create(pageUrl);
+        } catch (IllegalArgumentException ignored) {
+            // unescaped characters in the href, let the multi-argument constructor quote them
+        }
+        try {
+            URL url = new URL(pageUrl);
+            return new URI(url.getProtocol(), url.getUserInfo(), url.getHost(), url.getPort(),
+                    url.getPath(), url.getQuery(), null);
+        } catch (IOException | URISyntaxException e) {
+            throw new SiteExceptions("Page url is wrong: " + pageUrl);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package searchengine.services.crawler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Spaces out the starts of requests to a host. The interval is chosen by the caller, page fetches
+ * take it from the site's {@link AdaptiveConcurrency}; the Crawl-delay of robots.txt is the only
+ * hard floor under it.
+ */
+public class PolitenessScheduler {
+
+    private final long defaultIntervalMillis;
+    private final ConcurrentMap<String, Long> nextSlotByHost = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> crawlDelayByHost = new ConcurrentHashMap<>();
+
+    public PolitenessScheduler(long defaultIntervalMillis) {
+        this.defaultIntervalMillis = defaultIntervalMillis;
+    }
+
+    public long tryAcquire(String host) {
+        return tryAcquire(host, defaultIntervalMillis);
+    }
+
+    /**
+     * Reserves the next request slot for the host if it is already open and puts the following one
+     * the interval, or the host's Crawl-delay if longer, later.
+     * Returns 0 when the slot was taken, otherwise how many milliseconds remain until it opens.
+     */
+    public long tryAcquire(String host, long intervalMillis) {
+        long now = System.currentTimeMillis();
+        long[] wait = new long[1];
+        nextSlotByHost.compute(host, (key, nextSlot) -> {
+            if (nextSlot == null || nextSlot <= now) {
+                return now + Math.max(intervalMillis, getCrawlDelay(host));
+            }
+            wait[0] = nextSlot - now;
+            return nextSlot;
+        });
+        return wait[0];
+    }
+
+    public void setCrawlDelay(String host, long crawlDelayMillis) {
+        if (crawlDelayMillis > 0) {
+            crawlDelayByHost.put(host, crawlDelayMillis);
+        } else {
+            crawlDelayByHost.remove(host);
+        }
+    }
+
+    public long getCrawlDelay(String host) {
+        return crawlDelayByHost.getOrDefault(host, 0L);
+    }
+
+    public void forget(String host) {
+        nextSlotByHost.remove(host);
+        crawlDelayByHost.remove(host);
+    }
+}
@@ -0,0 +1,173 @@
+package searchengine.services.crawler;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Rules of the robots.txt group that applies to the crawler.
+ * The longest matching Allow or Disallow pattern decides, Allow wins a tie.
+ */
+public class RobotsRules {
+
+    public static final RobotsRules ALLOW_ALL = new RobotsRules(Collections.emptyList(), 0, Collections.emptyList());
+
+    private final List<Rule> rules;
+    @Getter
+    private final long crawlDelayMillis;
+    @Getter
+    private final List<String> sitemaps;
+
+    private RobotsRules(List<Rule> rules, long crawlDelayMillis, List<String> sitemaps) {
+        this.rules = rules;
+        this.crawlDelayMillis = crawlDelayMillis;
+        this.sitemaps = sitemaps;
+    }
+
+    public boolean isAllowed(String path) {
+        Rule decisive = null;
+        for (Rule rule : rules) {
+            if (rule.matches(path) && (decisive == null || rule.length() > decisive.length()
+                    || (rule.length() == decisive.length() && rule.allow))) {
+                decisive = rule;
+            }
+        }
+        return decisive == null || decisive.allow;
+    }
+
+    /**
+     * Picks the group naming the product token of the agent, compared case-insensitively as RFC 9309
+     * asks, falling back to the "*" group. Sitemap lines are collected regardless of the group they appear in.
+     */
+    public static RobotsRules parse(String robotsTxt, String agentToken) {
+        String agent = productToken(agentToken);
+        List<String> sitemaps = new ArrayList<>();
+        Group specific = new Group();
+        Group wildcard = new Group();
+        List<Group> current = new ArrayList<>();
+        boolean groupOpen = false;
+        for (String rawLine : robotsTxt.split("\r\n|\r|\n")) {
+            int comment = rawLine.indexOf('#');
+            String line = (comment < 0 ? rawLine : rawLine.substring(0, comment)).trim();
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String field = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            switch (field) {
+                case "user-agent":
+                    if (groupOpen) {
+                        current.clear();
+                        groupOpen = false;
+                    }
+                    String name = productToken(value);
+                    if (name.equals("*")) {
+                        current.add(wildcard);
+                    } else if (!name.isEmpty() && name.equals(agent)) {
+                        specific.matched = true;
+                        current.add(specific);
+                    }
+                    break;
+                case "allow":
+                case "disallow":
+                    groupOpen = true;
+                    if (!value.isEmpty()) {
+                        Rule rule = new Rule(value, field.equals("allow"));
+                        current.forEach(group -> group.rules.add(rule));
+                    }
+                    break;
+                case "crawl-delay":
+                    groupOpen = true;
+                    long delay = parseDelay(value);
+                    current.forEach(group -> group.crawlDelayMillis = delay);
+                    break;
+                case "sitemap":
+                    if (!value.isEmpty()) {
+                        sitemaps.add(value);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        Group group = specific.matched ? specific : wildcard;
+        return new RobotsRules(group.rules, group.crawlDelayMillis, sitemaps);
+    }
+
+    /**
+     * "SearchEngine/1.0 (+https://...)" names the same crawler as "searchengine".
+     */
+    private static String productToken(String agent) {
+        int end = 0;
+        while (end < agent.length() && agent.charAt(end) != '/' && !Character.isWhitespace(agent.charAt(end))) {
+            end++;
+        }
+        return agent.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static long parseDelay(String value) {
+        try {
+            return Math.max(0, (long) (Double.parseDouble(value) * 1000));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static class Group {
+        private final List<Rule> rules = new ArrayList<>();
+        private long crawlDelayMillis;
+        private boolean matched;
+    }
+
+    private static class Rule {
+        private final String pattern;
+        private final boolean allow;
+        private final boolean anchored;
+
+        private Rule(String pattern, boolean allow) {
+            this.anchored = pattern.endsWith("$");
+            this.pattern = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+            this.allow = allow;
+        }
+
+        private int length() {
+            return pattern.length();
+        }
+
+        /**
+         * Two-pointer wildcard match: on a mismatch only the last "*" takes one more character of the path,
+         * so the cost stays within path length times pattern length however many "*" the pattern has.
+         */
+        private boolean matches(String path) {
+            int pathIndex = 0;
+            int patternIndex = 0;
+            int star = -1;
+            int starPathIndex = 0;
+            while (pathIndex < path.length()) {
+                if (patternIndex == pattern.length() && !anchored) {
+                    return true;
+                }
+                if (patternIndex < pattern.length() && pattern.charAt(patternIndex) == '*') {
+                    star = patternIndex++;
+                    starPathIndex = pathIndex;
+                } else if (patternIndex < pattern.length() && pattern.charAt(patternIndex) == path.charAt(pathIndex)) {
+                    patternIndex++;
+                    pathIndex++;
+                } else if (star >= 0) {
+                    patternIndex = star + 1;
+                    pathIndex = ++starPathIndex;
+                } else {
+                    return false;
+                }
+            }
+            while (patternIndex < pattern.length() && pattern.charAt(patternIndex) == '*') {
+                patternIndex++;
+            }
+            return patternIndex == pattern.length();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package searchengine.services.crawler;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.function.LongConsumer;
+
+/**
+ * Per-site set of already discovered urls, stored as 64-bit fingerprints.
+ * Fingerprints are spread over independently locked stripes; once the in-memory
+ * budget of a stripe is used up, its new fingerprints go to a memory-mapped spill
+ * file, optionally fronted by a Bloom filter sized for the spill capacity: a fingerprint the filter
+ * has never seen is written to the spill without first probing it for a duplicate.
+ */
+public class SeenUrlSet implements Closeable {
+
+    private static final int STRIPES = 64;
+
+    private final LongOpenHashSet[] stripes = new LongOpenHashSet[STRIPES];
+    private final int maxPerStripe;
+    private final boolean bloomFilterEnabled;
+    private final int spillCapacity;
+    private final Path spillDirectory;
+    private final Object spillLock = new Object();
+    private SpillLongSet spill;
+    private BloomFilter bloomFilter;
+
+    public SeenUrlSet(int maxInMemory, boolean bloomFilterEnabled, int spillCapacity, Path spillDirectory) {
+        this.maxPerStripe = Math.max(1, maxInMemory / STRIPES);
+        this.bloomFilterEnabled = bloomFilterEnabled;
+        this.spillCapacity = Math.max(1, Math.min(spillCapacity, SpillLongSet.MAX_SIZE));
+        this.spillDirectory = spillDirectory;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongOpenHashSet(Math.min(maxPerStripe, 1024));
+        }
+    }
+
+    /**
+     * Returns true if the url was not seen before and has been recorded now.
+     */
+    public boolean add(CharSequence url) {
+        return addFingerprint(UrlFingerprint.of(url));
+    }
+
+    public boolean contains(CharSequence url) {
+        long fingerprint = UrlFingerprint.of(url);
+        LongOpenHashSet stripe = stripeOf(fingerprint);
+        synchronized (stripe) {
+            return stripe.contains(fingerprint) || spillContains(fingerprint);
+        }
+    }
+
+    public boolean addFingerprint(long fingerprint) {
+        LongOpenHashSet stripe = stripeOf(fingerprint);
+        synchronized (stripe) {
+            if (stripe.contains(fingerprint)) {
+                return false;
+            }
+            if (stripe.size() < maxPerStripe) {
+                return stripe.add(fingerprint);
+            }
+            return spillAdd(fingerprint);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (LongOpenHashSet stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        synchronized (spillLock) {
+            return spill == null ? size : size + spill.size();
+        }
+    }
+
+    public void forEachFingerprint(LongConsumer consumer) {
+        for (LongOpenHashSet stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEach(consumer);
+            }
+        }
+        synchronized (spillLock) {
+            if (spill != null) {
+                spill.forEach(consumer);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (spillLock) {
+            if (spill != null) {
+                spill.close();
+                spill = null;
+            }
+        }
+    }
+
+    private boolean spillContains(long fingerprint) {
+        synchronized (spillLock) {
+            if (spill == null || (bloomFilter != null && !bloomFilter.mightContain(fingerprint))) {
+                return false;
+            }
+            return spill.contains(fingerprint);
+        }
+    }
+
+    private boolean spillAdd(long fingerprint) {
+        synchronized (spillLock) {
+            if (spill == null) {
+                spill = new SpillLongSet(spillDirectory, maxPerStripe * STRIPES);
+                bloomFilter = bloomFilterEnabled ? new BloomFilter(spillCapacity, 0.01) : null;
+            }
+            if (bloomFilter == null) {
+                return spill.add(fingerprint);
+            }
+            if (!bloomFilter.mightContain(fingerprint)) {
+                bloomFilter.put(fingerprint);
+                spill.addAbsent(fingerprint);
+                return true;
+            }
+            return spill.add(fingerprint);
+        }
+    }
+
+    private LongOpenHashSet stripeOf(long fingerprint) {
+        return stripes[(int) (fingerprint >>> 58) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,88 @@
+package searchengine.services.crawler;
+
+import searchengine.util.SimHash;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-site index of page SimHashes. The fingerprint is cut into maxDistance + 1 bands,
+ * so any two fingerprints within maxDistance bits share at least one band exactly
+ * and only pages from matching band buckets are compared bit by bit. Bands narrower
+ * than 8 bits would put most pages of a site into the same buckets, hence MAX_DISTANCE.
+ */
+public class SimHashIndex {
+
+    public static final int MAX_DISTANCE = 7;
+
+    private final int maxDistance;
+    private final int bands;
+    private final int bandWidth;
+    private final List<Map<Long, List<long[]>>> buckets = new ArrayList<>();
+
+    public SimHashIndex(int maxDistance) {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("Near-duplicate distance must be between 0 and " + MAX_DISTANCE
+                    + ", got " + maxDistance);
+        }
+        this.maxDistance = maxDistance;
+        this.bands = maxDistance + 1;
+        this.bandWidth = 64 / bands;
+        for (int i = 0; i < bands; i++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Returns the id of an indexed page within maxDistance of the fingerprint, or 0 if there is none.
+     */
+    public synchronized int findNearDuplicate(long simHash, int pageId) {
+        for (int band = 0; band < bands; band++) {
+            List<long[]> bucket = buckets.get(band).get(bandOf(simHash, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (long[] entry : bucket) {
+                if (entry[1] != pageId && SimHash.distance(entry[0], simHash) <= maxDistance) {
+                    return (int) entry[1];
+                }
+            }
+        }
+        return 0;
+    }
+
+    public synchronized void add(long simHash, int pageId) {
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).computeIfAbsent(bandOf(simHash, band), key -> new ArrayList<>(1))
+                    .add(new long[]{simHash, pageId});
+        }
+    }
+
+    public synchronized void remove(long simHash, int pageId) {
+        for (int band = 0; band < bands; band++) {
+            List<long[]> bucket = buckets.get(band).get(bandOf(simHash, band));
+            if (bucket != null) {
+                bucket.removeIf(entry -> entry[0] == simHash && entry[1] == pageId);
+            }
+        }
+    }
+
+    /**
+     * Removes the pages in one pass over the buckets, for when their fingerprints are not at hand.
+     */
+    public synchronized void removeAll(Set<Integer> pageIds) {
+        for (Map<Long, List<long[]>> bandBuckets : buckets) {
+            bandBuckets.values().forEach(bucket -> bucket.removeIf(entry -> pageIds.contains((int) entry[1])));
+        }
+    }
+
+    private long bandOf(long simHash, int band) {
+        int shift = band * bandWidth;
+        int width = band == bands - 1 ? 64 - shift : bandWidth;
+        long mask = width == 64 ? -1L : (1L << width) - 1;
+        return simHash >>> shift & mask;
+    }
+}
@@ -0,0 +1,16 @@
+package searchengine.services.crawler;
+
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.List;
+
+@Value
+public class SiteBootstrap {
+    RobotsRules robotsRules;
+    List<String> seedUrls;
+
+    public static SiteBootstrap allowAll() {
+        return new SiteBootstrap(RobotsRules.ALLOW_ALL, Collections.emptyList());
+    }
+}
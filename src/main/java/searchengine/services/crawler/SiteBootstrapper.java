@@ -0,0 +1,132 @@
+package searchengine.services.crawler;
+
+import lombok.extern.log4j.Log4j2;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import searchengine.util.PropertiesProject;
+import searchengine.util.ReworkString;
+import searchengine.util.UrlCanonicalizer;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads robots.txt and the sitemaps of a site before its crawl starts.
+ * Every request goes through the politeness scheduler like regular page fetches.
+ */
+@Log4j2
+public class SiteBootstrapper {
+
+    private final PropertiesProject propertiesProject;
+    private final PageFetcher pageFetcher;
+    private final PolitenessScheduler politeness;
+    private final UrlCanonicalizer urlCanonicalizer;
+
+    public SiteBootstrapper(PropertiesProject propertiesProject, PageFetcher pageFetcher, PolitenessScheduler politeness,
+                            UrlCanonicalizer urlCanonicalizer) {
+        this.propertiesProject = propertiesProject;
+        this.pageFetcher = pageFetcher;
+        this.politeness = politeness;
+        this.urlCanonicalizer = urlCanonicalizer;
+    }
+
+    public CompletableFuture<SiteBootstrap> bootstrap(String homePage, boolean readSitemaps) {
+        if (!propertiesProject.isRobotsEnabled()) {
+            return CompletableFuture.completedFuture(SiteBootstrap.allowAll());
+        }
+        String host = URI.create(homePage).getHost();
+        return politeFetch(host, homePage + "robots.txt")
+                .thenApply(fetchResult -> fetchResult.getStatusCode() == 200
+                        ? RobotsRules.parse(new String(fetchResult.getBody(), StandardCharsets.UTF_8),
+                        propertiesProject.getRobotsAgent())
+                        : RobotsRules.ALLOW_ALL)
+                .exceptionally(throwable -> {
+                    log.warn("robots.txt of " + homePage + " could not be read due to " + throwable);
+                    return RobotsRules.ALLOW_ALL;
+                })
+                .thenCompose(robotsRules -> {
+                    politeness.setCrawlDelay(host,
+                            Math.min(robotsRules.getCrawlDelayMillis(), propertiesProject.getRobotsMaxCrawlDelay()));
+                    if (!readSitemaps) {
+                        return CompletableFuture.completedFuture(new SiteBootstrap(robotsRules, List.of()));
+                    }
+                    Deque<String> sitemaps = new ArrayDeque<>(robotsRules.getSitemaps());
+                    if (sitemaps.isEmpty()) {
+                        sitemaps.add(homePage + "sitemap.xml");
+                    }
+                    List<String> seedUrls = new ArrayList<>();
+                    return readSitemaps(host, robotsRules, sitemaps, new HashSet<>(), seedUrls)
+                            .thenApply(ignored -> {
+                                log.info("Sitemaps of " + homePage + " listed " + seedUrls.size() + " pages");
+                                return new SiteBootstrap(robotsRules, seedUrls);
+                            });
+                });
+    }
+
+    /**
+     * Reads one sitemap after another; sitemap indexes push their children onto the same queue.
+     */
+    private CompletableFuture<Void> readSitemaps(String host, RobotsRules robotsRules, Deque<String> pending,
+                                                 Set<String> visited, List<String> seedUrls) {
+        String sitemapUrl = pending.poll();
+        if (sitemapUrl == null || visited.size() >= propertiesProject.getSitemapMaxFiles()
+                || seedUrls.size() >= propertiesProject.getSitemapMaxUrls()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!visited.add(sitemapUrl)) {
+            return readSitemaps(host, robotsRules, pending, visited, seedUrls);
+        }
+        return politeFetch(host, sitemapUrl)
+                .thenAccept(fetchResult -> {
+                    if (fetchResult.getStatusCode() == 200) {
+                        parseSitemap(fetchResult, robotsRules, pending, seedUrls);
+                    }
+                })
+                .exceptionally(throwable -> {
+                    log.warn("Sitemap " + sitemapUrl + " could not be read due to " + throwable);
+                    return null;
+                })
+                .thenCompose(ignored -> readSitemaps(host, robotsRules, pending, visited, seedUrls));
+    }
+
+    private void parseSitemap(FetchResult fetchResult, RobotsRules robotsRules, Deque<String> pending,
+                              List<String> seedUrls) {
+        byte[] body = fetchResult.getBody();
+        if (body.length > 2 && (body[0] & 0xff) == 0x1f && (body[1] & 0xff) == 0x8b) {
+            body = PageFetcher.gunzip(body, propertiesProject.getMaxBodySize());
+        }
+        Document document = Jsoup.parse(new String(body, StandardCharsets.UTF_8), fetchResult.getUrl(), Parser.xmlParser());
+        for (Element loc : document.select("sitemap > loc")) {
+            pending.add(loc.text().trim());
+        }
+        int maxUrls = propertiesProject.getSitemapMaxUrls();
+        for (Element loc : document.select("url > loc")) {
+            if (seedUrls.size() >= maxUrls) {
+                return;
+            }
+            String url = urlCanonicalizer.canonicalize(loc.text());
+            if (url != null && robotsRules.isAllowed(ReworkString.getPathOfUrl(loc.text().trim()))) {
+                seedUrls.add(url);
+            }
+        }
+    }
+
+    private CompletableFuture<FetchResult> politeFetch(String host, String url) {
+        long wait = politeness.tryAcquire(host);
+        if (wait > 0) {
+            return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(wait, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> politeFetch(host, url));
+        }
+        return pageFetcher.fetchResource(url);
+    }
+}
@@ -0,0 +1,311 @@
+package searchengine.services.crawler;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import searchengine.model.PageEntity;
+import searchengine.model.SiteEntity;
+import searchengine.services.SiteParser;
+import searchengine.services.indexing.PageProcessing;
+import searchengine.util.ReworkString;
+
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+@Log4j2
+public class SiteCrawler {
+
+    @Getter
+    private final SiteEntity siteEntity;
+    private final SiteParser siteParser;
+    private final PageFetcher pageFetcher;
+    private final String host;
+    private final CrawlFrontier frontier = new CrawlFrontier();
+    private final SeenUrlSet seenUrls;
+    private final PolitenessScheduler politeness;
+    private final ScheduledExecutorService dispatcher;
+    private final Executor workers;
+    @Getter
+    private final AdaptiveConcurrency concurrency;
+    private final Consumer<CrawlCheckpoint> checkpointHandler;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Set<CrawlTask> inFlightTasks = ConcurrentHashMap.newKeySet();
+    private final AtomicLong pagesProcessed = new AtomicLong();
+    private final AtomicBoolean checkpointRunning = new AtomicBoolean();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private volatile RobotsRules robotsRules = RobotsRules.ALLOW_ALL;
+    private volatile boolean bootstrapped;
+    private ScheduledFuture<?> pendingDispatch;
+
+    public SiteCrawler(SiteEntity siteEntity, SiteParser siteParser, PageFetcher pageFetcher, SeenUrlSet seenUrls,
+                       PolitenessScheduler politeness, ScheduledExecutorService dispatcher, Executor workers,
+                       AdaptiveConcurrency concurrency, Consumer<CrawlCheckpoint> checkpointHandler) {
+        this.siteEntity = siteEntity;
+        this.siteParser = siteParser;
+        this.pageFetcher = pageFetcher;
+        this.host = URI.create(siteEntity.getUrl()).getHost();
+        this.seenUrls = seenUrls;
+        this.politeness = politeness;
+        this.dispatcher = dispatcher;
+        this.workers = workers;
+        this.concurrency = concurrency;
+        this.checkpointHandler = checkpointHandler;
+    }
+
+    /**
+     * The start page is queued right away, but nothing is dispatched until robots.txt and the sitemaps are read.
+     * The start page itself is always fetched since it is the one the site is configured with.
+     */
+    public CompletableFuture<Void> start(String startPage, CompletableFuture<SiteBootstrap> bootstrap) {
+        seenUrls.add(startPage);
+        frontier.offer(startPage, 0);
+        bootstrap.whenCompleteAsync(this::applyBootstrap, dispatcher);
+        return completion;
+    }
+
+    public CompletableFuture<Void> resume(CrawlCheckpoint checkpoint, CompletableFuture<SiteBootstrap> bootstrap) {
+        for (long fingerprint : checkpoint.getSeenFingerprints()) {
+            seenUrls.addFingerprint(fingerprint);
+        }
+        checkpoint.getPendingTasks().forEach(task -> frontier.offer(task.getUrl(), task.getDepth()));
+        pagesProcessed.set(checkpoint.getPagesProcessed());
+        log.info("Crawl resumed for " + siteEntity.getUrl() + " with " + frontier.size() + " pending pages");
+        bootstrap.whenCompleteAsync(this::applyBootstrap, dispatcher);
+        return completion;
+    }
+
+    public boolean isActive() {
+        return !completion.isDone();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getPending() {
+        return inFlightTasks.size();
+    }
+
+    public int getQueued() {
+        return frontier.size();
+    }
+
+    public long getPagesProcessed() {
+        return pagesProcessed.get();
+    }
+
+    /**
+     * Stops the crawl on the dispatcher thread and hands the state it stopped at
+     * to whoever waits on the crawl through {@link CrawlStoppedException}.
+     */
+    public void stop() {
+        dispatcher.execute(() -> {
+            if (isActive()) {
+                CrawlCheckpoint checkpoint = snapshot();
+                frontier.clear();
+                completion.completeExceptionally(new CrawlStoppedException(
+                        "Crawl of " + siteEntity.getUrl() + " stopped", checkpoint));
+            }
+        });
+    }
+
+    public void close() {
+        seenUrls.close();
+    }
+
+    /**
+     * Runs on the dispatcher thread, so nothing is polled from the frontier while the snapshot is taken.
+     */
+    void checkpoint() {
+        if (!isActive() || checkpointHandler == null || !checkpointRunning.compareAndSet(false, true)) {
+            return;
+        }
+        CrawlCheckpoint checkpoint = snapshot();
+        workers.execute(() -> {
+            try {
+                checkpointHandler.accept(checkpoint);
+            } finally {
+                checkpointRunning.set(false);
+            }
+        });
+    }
+
+    /**
+     * The seen set is copied before the in-flight tasks and those before the frontier,
+     * so every url discovered so far is either pending in the snapshot or already processed.
+     */
+    private CrawlCheckpoint snapshot() {
+        List<Long> fingerprints = new ArrayList<>();
+        seenUrls.forEachFingerprint(fingerprints::add);
+        long[] seenFingerprints = fingerprints.stream().mapToLong(Long::longValue).toArray();
+        List<CrawlTask> pendingTasks = new ArrayList<>(inFlightTasks);
+        pendingTasks.addAll(frontier.snapshot());
+        return new CrawlCheckpoint(siteEntity.getId(), siteEntity.getUrl(), pagesProcessed.get(),
+                System.currentTimeMillis(), pendingTasks, seenFingerprints);
+    }
+
+    private void applyBootstrap(SiteBootstrap bootstrap, Throwable throwable) {
+        if (bootstrap != null) {
+            robotsRules = bootstrap.getRobotsRules();
+            siteParser.setRobotsRules(robotsRules);
+            int seeded = 0;
+            for (String url : bootstrap.getSeedUrls()) {
+                if (isAllowed(url) && seenUrls.add(url)) {
+                    frontier.offer(url, 1);
+                    seeded++;
+                }
+            }
+            log.info("Crawl of " + siteEntity.getUrl() + " seeded with " + seeded + " pages from sitemaps");
+        } else {
+            log.warn("Bootstrap of " + siteEntity.getUrl() + " failed due to " + throwable);
+        }
+        bootstrapped = true;
+        dispatch();
+    }
+
+    private boolean isAllowed(String url) {
+        return siteParser.isLinkValid(url) && robotsRules.isAllowed(ReworkString.getPathOfUrl(url));
+    }
+
+    private void requestDispatch() {
+        dispatcher.execute(this::dispatch);
+    }
+
+    /**
+     * Runs on the dispatcher thread only, so the frontier is polled by a single consumer
+     * and the politeness wait is a scheduled wake-up instead of a sleeping worker.
+     */
+    private void dispatch() {
+        if (!isActive()) {
+            frontier.clear();
+            return;
+        }
+        if (!bootstrapped) {
+            return;
+        }
+        while (inFlight.get() < concurrency.getLimit() && !frontier.isEmpty()) {
+            long wait = politeness.tryAcquire(host, concurrency.getInterval());
+            if (wait > 0) {
+                scheduleDispatch(wait);
+                return;
+            }
+            CrawlTask task = frontier.poll();
+            inFlight.incrementAndGet();
+            inFlightTasks.add(task);
+            workers.execute(() -> fetch(task));
+        }
+        if (frontier.isEmpty() && inFlight.get() == 0 && inFlightTasks.isEmpty()) {
+            politeness.forget(host);
+            completion.complete(null);
+        }
+    }
+
+    private void scheduleDispatch(long waitMillis) {
+        if (pendingDispatch == null || pendingDispatch.isDone()) {
+            pendingDispatch = dispatcher.schedule(this::dispatch, waitMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void fetch(CrawlTask task) {
+        PageEntity indexedPage;
+        try {
+            indexedPage = siteParser.findIndexedPage(task.getUrl());
+        } catch (Exception exception) {
+            process(task, null, null, exception);
+            return;
+        }
+        boolean conditional = indexedPage != null && siteParser.isConditionalFetch();
+        long startedAt = System.nanoTime();
+        pageFetcher.fetch(ReworkString.getRequestUrl(task.getUrl()),
+                        conditional ? indexedPage.getEtag() : null,
+                        conditional ? indexedPage.getLastModified() : null)
+                .whenCompleteAsync((fetchResult, throwable) -> {
+                    recordLatency(fetchResult, throwable, startedAt);
+                    process(task, indexedPage, fetchResult, throwable);
+                }, workers);
+    }
+
+    private void recordLatency(FetchResult fetchResult, Throwable throwable, long startedAt) {
+        if (fetchResult != null) {
+            concurrency.onResponse(fetchResult.getStatusCode(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } else if (throwable instanceof HttpTimeoutException || throwable.getCause() instanceof HttpTimeoutException) {
+            concurrency.onTimeout();
+        }
+    }
+
+    /**
+     * The fetch slot is given back as soon as the page is parsed and its links are queued,
+     * but the task stays pending until the pipeline has stored and lemmatized the page,
+     * so checkpoints and the end of the crawl never get ahead of the index.
+     */
+    private void process(CrawlTask task, PageEntity indexedPage, FetchResult fetchResult, Throwable fetchError) {
+        PageProcessing processing;
+        try {
+            if (!isActive()) {
+                finishTask(task, true);
+                return;
+            }
+            processing = fetchError == null
+                    ? siteParser.process(task.getUrl(), indexedPage, fetchResult)
+                    : PageProcessing.completed(siteParser.handleFetchFailure(task.getUrl(), fetchError));
+        } catch (Exception exception) {
+            fail(task, exception);
+            finishTask(task, true);
+            return;
+        }
+        processing.getLinks().whenCompleteAsync((links, throwable) -> {
+            try {
+                if (throwable == null) {
+                    pagesProcessed.incrementAndGet();
+                    offerLinks(task, links);
+                }
+            } finally {
+                inFlight.decrementAndGet();
+                requestDispatch();
+            }
+        }, workers);
+        processing.getCompletion().whenCompleteAsync((ignored, throwable) -> {
+            if (throwable != null) {
+                fail(task, throwable);
+            }
+            finishTask(task, false);
+        }, workers);
+    }
+
+    private void offerLinks(CrawlTask task, List<String> links) {
+        for (String link : links) {
+            if (isActive() && robotsRules.isAllowed(ReworkString.getPathOfUrl(link)) && seenUrls.add(link)) {
+                frontier.offer(link, task.getDepth() + 1);
+            }
+        }
+    }
+
+    private void fail(CrawlTask task, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        log.warn("Crawl of " + siteEntity.getUrl() + " stopped at " + task.getUrl() + " due to " + cause);
+        completion.completeExceptionally(cause);
+    }
+
+    private void finishTask(CrawlTask task, boolean releaseFetchSlot) {
+        inFlightTasks.remove(task);
+        if (releaseFetchSlot) {
+            inFlight.decrementAndGet();
+        }
+        requestDispatch();
+    }
+}
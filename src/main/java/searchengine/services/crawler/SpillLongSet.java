@@ -0,0 +1,133 @@
+package searchengine.services.crawler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Open addressing set of non-zero longs kept in a memory-mapped file, so spilled
+ * fingerprints live in the page cache instead of the heap. Not thread safe.
+ */
+class SpillLongSet implements Closeable {
+
+    private static final float LOAD_FACTOR = 0.6f;
+    static final int MAX_CAPACITY = 1 << 27;
+    static final int MAX_SIZE = (int) (MAX_CAPACITY * LOAD_FACTOR);
+
+    private final Path directory;
+    private Path file;
+    private LongBuffer table;
+    private int mask;
+    private int size;
+
+    SpillLongSet(Path directory, int initialCapacity) {
+        this.directory = directory;
+        int capacity = Integer.highestOneBit(Math.max(1024, initialCapacity) - 1) << 1;
+        map(Math.min(capacity, MAX_CAPACITY));
+    }
+
+    boolean add(long value) {
+        int index = indexOf(value, table, mask);
+        if (table.get(index) == value) {
+            return false;
+        }
+        table.put(index, value);
+        if (++size > (mask + 1) * LOAD_FACTOR) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Adds a value the caller knows is not in the set, so the probe stops at the first free slot
+     * without comparing the values it passes.
+     */
+    void addAbsent(long value) {
+        int index = (int) (value ^ (value >>> 32)) & mask;
+        while (table.get(index) != 0) {
+            index = (index + 1) & mask;
+        }
+        table.put(index, value);
+        if (++size > (mask + 1) * LOAD_FACTOR) {
+            grow();
+        }
+    }
+
+    boolean contains(long value) {
+        return table.get(indexOf(value, table, mask)) == value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(LongConsumer consumer) {
+        for (int i = 0; i <= mask; i++) {
+            long value = table.get(i);
+            if (value != 0) {
+                consumer.accept(value);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        table = null;
+        deleteQuietly(file);
+    }
+
+    private void grow() {
+        if (mask + 1 >= MAX_CAPACITY) {
+            throw new IllegalStateException("Seen url spill file is full (" + size + " entries)");
+        }
+        Path oldFile = file;
+        LongBuffer oldTable = table;
+        int oldCapacity = mask + 1;
+        map(oldCapacity << 1);
+        for (int i = 0; i < oldCapacity; i++) {
+            long value = oldTable.get(i);
+            if (value != 0) {
+                table.put(indexOf(value, table, mask), value);
+            }
+        }
+        deleteQuietly(oldFile);
+    }
+
+    private void map(int capacity) {
+        try {
+            Files.createDirectories(directory);
+            file = Files.createTempFile(directory, "seen-urls-", ".bin");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                table = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * Long.BYTES).asLongBuffer();
+            }
+            mask = capacity - 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Seen url spill file could not be created in " + directory, e);
+        }
+    }
+
+    private static int indexOf(long value, LongBuffer table, int mask) {
+        int index = (int) (value ^ (value >>> 32)) & mask;
+        long current;
+        while ((current = table.get(index)) != 0 && current != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            if (path != null) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException ignored) {
+            // the file lives in a temp directory, a leftover is harmless
+        }
+    }
+}
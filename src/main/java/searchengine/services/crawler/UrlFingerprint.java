@@ -0,0 +1,36 @@
+package searchengine.services.crawler;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class UrlFingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * 64-bit fingerprint of the url, computed as if it ended with a slash so that
+     * "/page" and "/page/" collapse to the same value. Never returns 0.
+     */
+    public long of(CharSequence url) {
+        long hash = FNV_OFFSET_BASIS;
+        int length = url.length();
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ url.charAt(i)) * FNV_PRIME;
+        }
+        if (length == 0 || url.charAt(length - 1) != '/') {
+            hash = (hash ^ '/') * FNV_PRIME;
+        }
+        hash = mix(hash);
+        return hash == 0 ? 1 : hash;
+    }
+
+    long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
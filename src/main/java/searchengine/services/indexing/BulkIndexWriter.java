@@ -0,0 +1,172 @@
+package searchengine.services.indexing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.model.PageEntity;
+import searchengine.util.PageContentCodec;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes pages, lemmas and index rows with plain JDBC batches, which the driver rewrites into
+ * multi-row inserts (rewriteBatchedStatements). Lemma frequencies are upserted against the
+ * (site_id, lemma) unique key, so nothing but the pending changes has to be kept in memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class BulkIndexWriter {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String INSERT_PAGE = "INSERT INTO pages (site_id, path, code, content, title, text, etag, "
+            + "last_modified, content_hash, simhash, duplicate_of) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPSERT_LEMMA = "INSERT INTO lemmas (site_id, lemma, frequency) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE frequency = frequency + VALUES(frequency)";
+    private static final String SELECT_LEMMA_IDS = "SELECT id, lemma FROM lemmas WHERE site_id = :siteId AND lemma IN (:lemmas)";
+    private static final String INSERT_INDEX = "INSERT INTO indexes_table (site_id, page_id, lemma_id, rank_lemmas) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_PAGE_LEMMAS = "SELECT l.lemma FROM indexes_table i JOIN lemmas l ON l.id = i.lemma_id "
+            + "WHERE i.site_id = :siteId AND i.page_id IN (:pageIds)";
+    private static final String DELETE_PAGE_INDEXES = "DELETE FROM indexes_table WHERE site_id = :siteId AND page_id IN (:pageIds)";
+    private static final String DELETE_PAGES = "DELETE FROM pages WHERE site_id = :siteId AND id IN (:pageIds)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final BulkWriteStats pageStats = new BulkWriteStats("pages");
+    private final BulkWriteStats lemmaStats = new BulkWriteStats("lemmas");
+    private final BulkWriteStats indexStats = new BulkWriteStats("indexes_table");
+
+    /**
+     * Inserts new pages in one batch and sets the ids the database generated for them.
+     */
+    public void insertPages(List<PageEntity> pages) {
+        long start = System.nanoTime();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_PAGE, Statement.RETURN_GENERATED_KEYS)) {
+                for (PageEntity page : pages) {
+                    bindPage(statement, page);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (PageEntity page : pages) {
+                        if (!keys.next()) {
+                            throw new SQLException("No generated id returned for page " + page.getPath());
+                        }
+                        page.setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+        pageStats.record(pages.size(), System.nanoTime() - start);
+    }
+
+    @Transactional
+    public void write(int siteId, LemmaIndexBuffer.Drained drained) {
+        upsertLemmaFrequencies(siteId, drained.getFrequencyDeltas());
+        insertIndexRows(siteId, drained.getIndexRows());
+    }
+
+    /**
+     * Deletes the pages and their index rows, a chunk of ids per statement, and returns the lemmas
+     * the pages were indexed with, once per page, so their frequencies can be decreased.
+     */
+    @Transactional
+    public List<String> deletePages(int siteId, List<Integer> pageIds) {
+        long start = System.nanoTime();
+        List<String> lemmas = new ArrayList<>();
+        for (int from = 0; from < pageIds.size(); from += BATCH_SIZE) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("siteId", siteId)
+                    .addValue("pageIds", pageIds.subList(from, Math.min(from + BATCH_SIZE, pageIds.size())));
+            lemmas.addAll(namedParameterJdbcTemplate.queryForList(SELECT_PAGE_LEMMAS, parameters, String.class));
+            namedParameterJdbcTemplate.update(DELETE_PAGE_INDEXES, parameters);
+            namedParameterJdbcTemplate.update(DELETE_PAGES, parameters);
+        }
+        pageStats.record(pageIds.size(), System.nanoTime() - start);
+        return lemmas;
+    }
+
+    public List<BulkWriteStats> getStats() {
+        return List.of(pageStats, lemmaStats, indexStats);
+    }
+
+    private void bindPage(PreparedStatement statement, PageEntity page) throws SQLException {
+        statement.setInt(1, page.getSite().getId());
+        statement.setString(2, page.getPath());
+        statement.setInt(3, page.getCode());
+        statement.setBytes(4, PageContentCodec.compress(page.getContent()));
+        statement.setString(5, page.getTitle());
+        statement.setString(6, page.getText());
+        statement.setString(7, page.getEtag());
+        statement.setString(8, page.getLastModified());
+        statement.setString(9, page.getContentHash());
+        statement.setObject(10, page.getSimhash(), Types.BIGINT);
+        statement.setObject(11, page.getDuplicateOf(), Types.INTEGER);
+    }
+
+    private void upsertLemmaFrequencies(int siteId, Map<String, Integer> frequencyDeltas) {
+        long start = System.nanoTime();
+        List<Object[]> batch = new ArrayList<>(Math.min(frequencyDeltas.size(), BATCH_SIZE));
+        for (Map.Entry<String, Integer> entry : frequencyDeltas.entrySet()) {
+            batch.add(new Object[]{siteId, entry.getKey(), entry.getValue()});
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(UPSERT_LEMMA, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_LEMMA, batch);
+        }
+        lemmaStats.record(frequencyDeltas.size(), System.nanoTime() - start);
+    }
+
+    private void insertIndexRows(int siteId, List<LemmaIndexBuffer.IndexRow> indexRows) {
+        if (indexRows.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, Long> lemmaIds = findLemmaIds(siteId, indexRows);
+        List<Object[]> batch = new ArrayList<>(Math.min(indexRows.size(), BATCH_SIZE));
+        for (LemmaIndexBuffer.IndexRow row : indexRows) {
+            batch.add(new Object[]{siteId, row.getPageId(), lemmaIds.get(row.getLemma()), row.getRank()});
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(INSERT_INDEX, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_INDEX, batch);
+        }
+        indexStats.record(indexRows.size(), System.nanoTime() - start);
+    }
+
+    private Map<String, Long> findLemmaIds(int siteId, List<LemmaIndexBuffer.IndexRow> indexRows) {
+        List<String> lemmas = indexRows.stream().map(LemmaIndexBuffer.IndexRow::getLemma).distinct()
+                .collect(Collectors.toList());
+        Map<String, Long> lemmaIds = new HashMap<>(lemmas.size() * 2);
+        for (int from = 0; from < lemmas.size(); from += BATCH_SIZE) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("siteId", siteId)
+                    .addValue("lemmas", lemmas.subList(from, Math.min(from + BATCH_SIZE, lemmas.size())));
+            namedParameterJdbcTemplate.query(SELECT_LEMMA_IDS, parameters,
+                    (RowCallbackHandler) resultSet ->
+                            lemmaIds.put(resultSet.getString("lemma"), resultSet.getLong("id")));
+        }
+        return lemmaIds;
+    }
+}
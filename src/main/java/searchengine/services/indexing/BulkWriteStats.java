@@ -0,0 +1,40 @@
+package searchengine.services.indexing;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rows written to one table by the bulk writer and the time spent writing them.
+ */
+public class BulkWriteStats {
+
+    @Getter
+    private final String table;
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    public BulkWriteStats(String table) {
+        this.table = table;
+    }
+
+    public void record(int rowCount, long elapsedNanos) {
+        rows.add(rowCount);
+        batches.increment();
+        nanos.add(elapsedNanos);
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public double getRowsPerSecond() {
+        long elapsed = nanos.sum();
+        return elapsed == 0 ? 0 : rows.sum() * 1_000_000_000.0 / elapsed;
+    }
+}
@@ -0,0 +1,101 @@
+package searchengine.services.indexing;
+
+import org.springframework.stereotype.Component;
+import searchengine.model.PageEntity;
+import searchengine.services.SiteParser;
+import searchengine.services.crawler.FetchResult;
+import searchengine.util.PropertiesProject;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetched pages go through three stages, each with its own threads and bounded queue:
+ * parse (CPU, html parsing, hashing, link extraction), persist (database writes)
+ * and lemmatize (CPU, morphology). A page moves on by being handed to the next stage
+ * from the thread that finished it, so a saturated stage holds back the ones before it
+ * and, in the end, the crawl workers handing fetched pages in.
+ */
+@Component
+public class IndexingPipeline {
+
+    private final PipelineStage parse;
+    private final PipelineStage persist;
+    private final PipelineStage lemmatize;
+
+    public IndexingPipeline(PropertiesProject propertiesProject) {
+        int queueCapacity = propertiesProject.getPipelineQueueCapacity();
+        this.parse = new PipelineStage("parse", propertiesProject.getPipelineParseThreads(), queueCapacity);
+        this.persist = new PipelineStage("persist", propertiesProject.getPipelinePersistThreads(), queueCapacity);
+        this.lemmatize = new PipelineStage("lemmatize", propertiesProject.getPipelineLemmatizeThreads(), queueCapacity);
+    }
+
+    public PageProcessing submit(SiteParser siteParser, String pagePath, PageEntity indexedPage, FetchResult fetchResult) {
+        CompletableFuture<List<String>> links = new CompletableFuture<>();
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        parse.execute(() -> {
+            ParsedPage parsedPage;
+            try {
+                parsedPage = siteParser.parse(pagePath, indexedPage, fetchResult);
+            } catch (RuntimeException exception) {
+                links.completeExceptionally(exception);
+                completion.completeExceptionally(exception);
+                throw exception;
+            }
+            links.complete(parsedPage.getLinks());
+            if (parsedPage.hasPageToSave()) {
+                handOff(persist, () -> persist(siteParser, parsedPage, completion), completion);
+            } else {
+                completion.complete(null);
+            }
+        });
+        return new PageProcessing(links, completion);
+    }
+
+    public List<PipelineStage> getStages() {
+        return List.of(parse, persist, lemmatize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (PipelineStage stage : getStages()) {
+            stage.shutdown(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private void handOff(PipelineStage stage, Runnable work, CompletableFuture<Void> completion) {
+        try {
+            stage.execute(work);
+        } catch (RejectedExecutionException exception) {
+            completion.completeExceptionally(exception);
+        }
+    }
+
+    private void persist(SiteParser siteParser, ParsedPage parsedPage, CompletableFuture<Void> completion) {
+        boolean indexable;
+        try {
+            indexable = siteParser.persist(parsedPage);
+        } catch (RuntimeException exception) {
+            completion.completeExceptionally(exception);
+            throw exception;
+        }
+        if (indexable) {
+            handOff(lemmatize, () -> lemmatize(siteParser, parsedPage, completion), completion);
+        } else {
+            completion.complete(null);
+        }
+    }
+
+    private void lemmatize(SiteParser siteParser, ParsedPage parsedPage, CompletableFuture<Void> completion) {
+        try {
+            siteParser.lemmatize(parsedPage);
+            completion.complete(null);
+        } catch (RuntimeException exception) {
+            completion.completeExceptionally(exception);
+            throw exception;
+        }
+    }
+}
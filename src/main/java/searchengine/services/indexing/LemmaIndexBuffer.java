@@ -0,0 +1,81 @@
+package searchengine.services.indexing;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lemma frequency changes and index rows of one site not written to the database yet.
+ * Pages are added concurrently; the buffer is drained by a flush holding the site's write lock,
+ * so it only ever holds what was indexed since the previous flush.
+ */
+public class LemmaIndexBuffer {
+
+    private final ConcurrentHashMap<String, Integer> frequencyDeltas = new ConcurrentHashMap<>();
+    private final Queue<IndexRow> indexRows = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile long lastFlush = System.currentTimeMillis();
+
+    public void addPage(int pageId, Map<String, Integer> lemmaRanks) {
+        for (Map.Entry<String, Integer> entry : lemmaRanks.entrySet()) {
+            frequencyDeltas.merge(entry.getKey(), 1, Integer::sum);
+            indexRows.add(new IndexRow(pageId, entry.getKey(), entry.getValue()));
+        }
+        size.addAndGet(lemmaRanks.size());
+    }
+
+    public void removePage(Collection<String> lemmas) {
+        for (String lemma : lemmas) {
+            frequencyDeltas.merge(lemma, -1, Integer::sum);
+        }
+        size.addAndGet(lemmas.size());
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isFlushDue(int maxRows, long interval) {
+        int pending = size.get();
+        return pending >= maxRows || (pending > 0 && System.currentTimeMillis() - lastFlush >= interval);
+    }
+
+    /**
+     * Must only be called while no page is being added, which the site's write lock guarantees.
+     */
+    public Drained drain() {
+        Map<String, Integer> deltas = new HashMap<>(frequencyDeltas);
+        frequencyDeltas.clear();
+        deltas.values().removeIf(delta -> delta == 0);
+        List<IndexRow> rows = new ArrayList<>(indexRows);
+        indexRows.clear();
+        size.set(0);
+        lastFlush = System.currentTimeMillis();
+        return new Drained(deltas, rows);
+    }
+
+    @Value
+    public static class IndexRow {
+        int pageId;
+        String lemma;
+        float rank;
+    }
+
+    @Value
+    public static class Drained {
+        Map<String, Integer> frequencyDeltas;
+        List<IndexRow> indexRows;
+
+        public boolean isEmpty() {
+            return frequencyDeltas.isEmpty() && indexRows.isEmpty();
+        }
+    }
+}
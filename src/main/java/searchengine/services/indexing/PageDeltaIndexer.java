@@ -0,0 +1,129 @@
+package searchengine.services.indexing;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.model.PageEntity;
+import searchengine.repository.PageRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reindexes one stored page by applying the difference between the lemmas it was indexed with,
+ * read back from indexes_table, and its new lemmas: only lemmas that disappeared or appeared change
+ * their frequency, ranks of the others are updated in place. The page row and the delta are
+ * written in one transaction and nothing outside the page's own lemmas is touched.
+ */
+@Component
+@RequiredArgsConstructor
+public class PageDeltaIndexer {
+
+    private static final String SELECT_PAGE_LEMMAS = "SELECT i.lemma_id, l.lemma, i.rank_lemmas FROM indexes_table i "
+            + "JOIN lemmas l ON l.id = i.lemma_id WHERE i.page_id = ? FOR UPDATE";
+    private static final String DECREMENT_LEMMAS = "UPDATE lemmas SET frequency = frequency - 1 WHERE id IN (:lemmaIds)";
+    private static final String DELETE_INDEX_ROWS = "DELETE FROM indexes_table WHERE page_id = :pageId AND lemma_id IN (:lemmaIds)";
+    private static final String DELETE_UNUSED_LEMMAS = "DELETE FROM lemmas WHERE id IN (:lemmaIds) AND frequency < 1";
+    private static final String INCREMENT_LEMMA = "INSERT INTO lemmas (site_id, lemma, frequency) VALUES (?, ?, 1) "
+            + "ON DUPLICATE KEY UPDATE frequency = frequency + 1";
+    private static final String SELECT_LEMMA_IDS = "SELECT id, lemma FROM lemmas WHERE site_id = :siteId AND lemma IN (:lemmas)";
+    private static final String INSERT_INDEX = "INSERT INTO indexes_table (site_id, page_id, lemma_id, rank_lemmas) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_RANK = "UPDATE indexes_table SET rank_lemmas = ? WHERE page_id = ? AND lemma_id = ?";
+
+    private final PageRepository pageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Transactional
+    public PageDelta reindexPage(PageEntity pageEntity, Map<String, Integer> lemmaRanks) {
+        PageEntity savedPage = pageRepository.saveAndFlush(pageEntity);
+        pageEntity.setId(savedPage.getId());
+        int pageId = savedPage.getId();
+
+        Map<String, IndexedLemma> indexedLemmas = new HashMap<>();
+        jdbcTemplate.query(SELECT_PAGE_LEMMAS, (RowCallbackHandler) resultSet -> indexedLemmas.put(
+                resultSet.getString("lemma"),
+                new IndexedLemma(resultSet.getLong("lemma_id"), resultSet.getFloat("rank_lemmas"))), pageId);
+
+        List<Long> removedLemmaIds = new ArrayList<>();
+        List<Object[]> changedRanks = new ArrayList<>();
+        for (Map.Entry<String, IndexedLemma> indexed : indexedLemmas.entrySet()) {
+            Integer rank = lemmaRanks.get(indexed.getKey());
+            if (rank == null) {
+                removedLemmaIds.add(indexed.getValue().lemmaId);
+            } else if (rank.floatValue() != indexed.getValue().rank) {
+                changedRanks.add(new Object[]{rank.floatValue(), pageId, indexed.getValue().lemmaId});
+            }
+        }
+        List<String> addedLemmas = new ArrayList<>();
+        for (String lemma : lemmaRanks.keySet()) {
+            if (!indexedLemmas.containsKey(lemma)) {
+                addedLemmas.add(lemma);
+            }
+        }
+
+        removeLemmas(pageId, removedLemmaIds);
+        addLemmas(savedPage.getSite().getId(), pageId, addedLemmas, lemmaRanks);
+        if (!changedRanks.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_RANK, changedRanks);
+        }
+        return new PageDelta(addedLemmas.size(), removedLemmaIds.size(), changedRanks.size());
+    }
+
+    private void removeLemmas(int pageId, List<Long> lemmaIds) {
+        if (lemmaIds.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("pageId", pageId)
+                .addValue("lemmaIds", lemmaIds);
+        namedParameterJdbcTemplate.update(DECREMENT_LEMMAS, parameters);
+        namedParameterJdbcTemplate.update(DELETE_INDEX_ROWS, parameters);
+        namedParameterJdbcTemplate.update(DELETE_UNUSED_LEMMAS, parameters);
+    }
+
+    private void addLemmas(int siteId, int pageId, List<String> lemmas, Map<String, Integer> lemmaRanks) {
+        if (lemmas.isEmpty()) {
+            return;
+        }
+        List<Object[]> increments = new ArrayList<>(lemmas.size());
+        for (String lemma : lemmas) {
+            increments.add(new Object[]{siteId, lemma});
+        }
+        jdbcTemplate.batchUpdate(INCREMENT_LEMMA, increments);
+
+        Map<String, Long> lemmaIds = new HashMap<>(lemmas.size() * 2);
+        namedParameterJdbcTemplate.query(SELECT_LEMMA_IDS,
+                new MapSqlParameterSource().addValue("siteId", siteId).addValue("lemmas", lemmas),
+                (RowCallbackHandler) resultSet -> lemmaIds.put(resultSet.getString("lemma"), resultSet.getLong("id")));
+        List<Object[]> indexRows = new ArrayList<>(lemmas.size());
+        for (String lemma : lemmas) {
+            indexRows.add(new Object[]{siteId, pageId, lemmaIds.get(lemma), lemmaRanks.get(lemma).floatValue()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_INDEX, indexRows);
+    }
+
+    @Value
+    public static class PageDelta {
+        int added;
+        int removed;
+        int rankChanged;
+    }
+
+    private static final class IndexedLemma {
+        private final long lemmaId;
+        private final float rank;
+
+        private IndexedLemma(long lemmaId, float rank) {
+            this.lemmaId = lemmaId;
+            this.rank = rank;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package searchengine.services.indexing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import searchengine.model.PageEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group commit for new pages. A thread inserting a page queues it and takes the write lock;
+ * whoever holds the lock inserts every page queued meanwhile in one batch, so persist threads
+ * arriving while a batch is written share the next one instead of inserting a row each.
+ */
+@Component
+@RequiredArgsConstructor
+public class PageInsertBatcher {
+
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private final BulkIndexWriter bulkIndexWriter;
+    private final Queue<PendingPage> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public void insert(PageEntity pageEntity) {
+        PendingPage own = new PendingPage(pageEntity);
+        pending.add(own);
+        writeLock.lock();
+        try {
+            while (!own.done) {
+                writeBatch();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (own.failure != null) {
+            throw own.failure;
+        }
+    }
+
+    private void writeBatch() {
+        List<PendingPage> batch = new ArrayList<>();
+        List<PageEntity> pages = new ArrayList<>();
+        PendingPage next;
+        while (batch.size() < MAX_BATCH_SIZE && (next = pending.poll()) != null) {
+            batch.add(next);
+            pages.add(next.pageEntity);
+        }
+        try {
+            bulkIndexWriter.insertPages(pages);
+            batch.forEach(page -> page.done = true);
+        } catch (RuntimeException exception) {
+            if (batch.size() == 1) {
+                batch.get(0).fail(exception);
+                return;
+            }
+            for (PendingPage page : batch) {
+                insertAlone(page);
+            }
+        }
+    }
+
+    /**
+     * After a failed batch the pages are retried one by one, so only the page at fault fails.
+     */
+    private void insertAlone(PendingPage page) {
+        try {
+            page.pageEntity.setId(0);
+            bulkIndexWriter.insertPages(List.of(page.pageEntity));
+            page.done = true;
+        } catch (RuntimeException exception) {
+            page.fail(exception);
+        }
+    }
+
+    private static final class PendingPage {
+        private final PageEntity pageEntity;
+        private boolean done;
+        private RuntimeException failure;
+
+        private PendingPage(PageEntity pageEntity) {
+            this.pageEntity = pageEntity;
+        }
+
+        private void fail(RuntimeException exception) {
+            failure = exception;
+            done = true;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package searchengine.services.indexing;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Progress of one page through the pipeline. Links are known as soon as the page is parsed,
+ * while completion waits until the page is stored and lemmatized.
+ */
+@Value
+public class PageProcessing {
+    CompletableFuture<List<String>> links;
+    CompletableFuture<Void> completion;
+
+    public static PageProcessing completed(List<String> links) {
+        return new PageProcessing(CompletableFuture.completedFuture(links), CompletableFuture.completedFuture(null));
+    }
+}
@@ -0,0 +1,17 @@
+package searchengine.services.indexing;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Published after a single page of a live site was reindexed, with the lemmas it is indexed with now.
+ */
+@Value
+public class PageReindexedEvent {
+    int siteId;
+    String url;
+    String name;
+    int pageId;
+    Map<String, Integer> lemmaRanks;
+}
@@ -0,0 +1,28 @@
+package searchengine.services.indexing;
+
+import lombok.Value;
+import searchengine.model.PageEntity;
+
+import java.util.List;
+
+/**
+ * Outcome of the parse stage for one fetched page: the links it leads to and,
+ * when there is something to store, the page entity with its html.
+ */
+@Value
+public class ParsedPage {
+    String pagePath;
+    List<String> links;
+    PageEntity pageEntity;
+    PageEntity replacedPage;
+    String html;
+    boolean indexable;
+
+    public static ParsedPage linksOnly(String pagePath, List<String> links) {
+        return new ParsedPage(pagePath, links, null, null, null, false);
+    }
+
+    public boolean hasPageToSave() {
+        return pageEntity != null;
+    }
+}
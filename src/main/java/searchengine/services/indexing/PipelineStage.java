@@ -0,0 +1,110 @@
+package searchengine.services.indexing;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed pool of threads behind a bounded queue. Submitting to a full stage blocks the
+ * submitting thread, which is how a slow stage pushes back on the stages feeding it.
+ */
+@Log4j2
+public class PipelineStage {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final int threads;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final long startedAt = System.nanoTime();
+
+    public PipelineStage(String name, int threads, int queueCapacity) {
+        this.name = name;
+        this.threads = threads;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "index-" + name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("Stage " + name + " is shut down");
+                    }
+                    try {
+                        pool.getQueue().put(runnable);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for stage " + name, e);
+                    }
+                });
+    }
+
+    /**
+     * Runs the work on the stage, waiting for a free queue slot if the stage is saturated.
+     * Failures are counted here; the work is expected to report them to whoever waits for it.
+     */
+    public void execute(Runnable work) {
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                work.run();
+                processed.increment();
+            } catch (RuntimeException exception) {
+                failed.increment();
+                log.warn("Stage " + name + " task failed due to " + exception);
+            } finally {
+                busyNanos.add(System.nanoTime() - start);
+            }
+        });
+    }
+
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        return seconds <= 0 ? 0 : processed.sum() / seconds;
+    }
+
+    /**
+     * Share of the stage's thread time spent working, 1.0 meaning every thread was busy all the time.
+     */
+    public double getUtilization() {
+        double available = (double) (System.nanoTime() - startedAt) * threads;
+        return available <= 0 ? 0 : busyNanos.sum() / available;
+    }
+
+    public void shutdown(long timeout, TimeUnit unit) {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
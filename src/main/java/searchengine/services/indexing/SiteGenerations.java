@@ -0,0 +1,111 @@
+package searchengine.services.indexing;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.model.SiteEntity;
+import searchengine.repository.SiteRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A full reindex builds a new generation of a site, a site row of its own, while search keeps
+ * reading the live one. When the build completes the live flag moves to it in one update, and the
+ * generations left behind are marked retired and dropped in the background. Pages, lemmas and
+ * index rows are partitioned by site id, so dropping a generation drops its partitions and
+ * doesn't delete rows one by one.
+ */
+@Log4j2
+@Component
+public class SiteGenerations {
+
+    private static final List<String> PARTITIONED_TABLES = List.of("indexes_table", "lemmas", "pages");
+    private static final String PARTITION_EXISTS = "SELECT COUNT(*) FROM information_schema.PARTITIONS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME = ?";
+
+    private final SiteRepository siteRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService cleaner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "generation-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SiteGenerations(SiteRepository siteRepository, JdbcTemplate jdbcTemplate) {
+        this.siteRepository = siteRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int nextGeneration(String url) {
+        SiteEntity latest = siteRepository.findSiteEntityByUrl(url);
+        return latest == null ? 1 : latest.getGeneration() + 1;
+    }
+
+    /**
+     * Adds the partitions that will hold the pages, lemmas and index rows of a new generation.
+     * Must be called right after the site row is saved and outside of a transaction,
+     * since ALTER TABLE commits implicitly.
+     */
+    public void createStorage(SiteEntity siteEntity) {
+        String partition = partitionName(siteEntity.getId());
+        for (String table : PARTITIONED_TABLES) {
+            if (!partitionExists(table, partition)) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " ADD PARTITION (PARTITION " + partition
+                        + " VALUES IN (" + siteEntity.getId() + "))");
+            }
+        }
+    }
+
+    /**
+     * Makes the generation the one search reads and retires every other generation of its site.
+     */
+    public void activate(SiteEntity siteEntity) {
+        siteRepository.activateGeneration(siteEntity.getUrl(), siteEntity.getId());
+        siteEntity.setLive(true);
+        retireAllExcept(siteEntity.getUrl(), siteEntity.getId());
+    }
+
+    public void retireAllExcept(String url, int keptSiteId) {
+        List<Integer> retired = siteRepository.findOtherGenerationIds(url, keptSiteId);
+        if (retired.isEmpty()) {
+            return;
+        }
+        siteRepository.markGenerationsRetired(retired);
+        for (Integer siteId : retired) {
+            cleaner.execute(() -> delete(siteId));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdownNow();
+    }
+
+    private void delete(int siteId) {
+        try {
+            long start = System.currentTimeMillis();
+            String partition = partitionName(siteId);
+            for (String table : PARTITIONED_TABLES) {
+                if (partitionExists(table, partition)) {
+                    jdbcTemplate.execute("ALTER TABLE " + table + " DROP PARTITION " + partition);
+                }
+            }
+            jdbcTemplate.update("DELETE FROM site WHERE id = ?", siteId);
+            log.info("Retired generation " + siteId + " dropped in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException exception) {
+            log.warn("Dropping retired generation " + siteId + " FAILED due to " + exception);
+        }
+    }
+
+    private boolean partitionExists(String table, String partition) {
+        Integer count = jdbcTemplate.queryForObject(PARTITION_EXISTS, Integer.class, table, partition);
+        return count != null && count > 0;
+    }
+
+    private static String partitionName(int siteId) {
+        return "s" + siteId;
+    }
+}
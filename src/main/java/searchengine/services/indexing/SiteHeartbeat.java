@@ -0,0 +1,67 @@
+package searchengine.services.indexing;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import searchengine.model.SiteEntity;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind status time of the sites being indexed. Stored pages only record the time in memory;
+ * the latest time of every site is written once per interval, so the threads of a site no longer
+ * queue on its row with an UPDATE per page. Status changes are saved right away by their callers,
+ * which first drop the pending beat so an older time cannot overwrite them.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class SiteHeartbeat {
+
+    private static final String UPDATE_STATUS_TIME = "UPDATE site SET status_time = ? WHERE id = ? AND status = 'INDEXING'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void beat(SiteEntity siteEntity) {
+        LocalDateTime now = LocalDateTime.now();
+        siteEntity.setLocalDateTime(now);
+        pending.put(siteEntity.getId(), now);
+    }
+
+    public void forget(SiteEntity siteEntity) {
+        pending.remove(siteEntity.getId());
+    }
+
+    @Scheduled(fixedDelayString = "${indexing.heartbeat-interval}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(pending.size());
+        for (Integer siteId : List.copyOf(pending.keySet())) {
+            LocalDateTime time = pending.remove(siteId);
+            if (time != null) {
+                batch.add(new Object[]{Timestamp.valueOf(time), siteId});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_STATUS_TIME, batch);
+        } catch (RuntimeException exception) {
+            log.warn("Site status time update FAILED due to " + exception);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
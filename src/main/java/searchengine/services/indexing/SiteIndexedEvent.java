@@ -0,0 +1,13 @@
+package searchengine.services.indexing;
+
+import lombok.Value;
+
+/**
+ * Published once a generation of a site is complete and live.
+ */
+@Value
+public class SiteIndexedEvent {
+    int siteId;
+    String url;
+    String name;
+}
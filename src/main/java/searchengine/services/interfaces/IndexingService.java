@@ -6,7 +6,7 @@ import searchengine.dto.api_response.ApiResponse;
 
 public interface IndexingService {
 
-    ResponseEntity<ApiResponse> startIndexing();
+    ResponseEntity<ApiResponse> startIndexing(boolean incremental);
 
     ResponseEntity<ApiResponse> indexPage(String page);
 
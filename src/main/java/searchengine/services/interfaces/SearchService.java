@@ -3,6 +3,10 @@ package searchengine.services.interfaces;
 import org.springframework.http.ResponseEntity;
 import searchengine.dto.api_search.ApiSearchResponse;
 
+import java.util.Set;
+
 public interface SearchService {
     ResponseEntity<ApiSearchResponse> search(String query, String url, int offset, int limit);
+
+    ResponseEntity<ApiSearchResponse> search(Set<String> lemmas, String url, int offset, int limit);
 }
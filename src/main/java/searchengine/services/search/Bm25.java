@@ -0,0 +1,31 @@
+package searchengine.services.search;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Okapi BM25 with the usual k1 = 1.2 and b = 0.75. A page score is the sum over the query lemmas
+ * of idf(lemma) * termWeight(rank of the lemma on the page); the page length is the sum of the
+ * ranks of all its lemmas.
+ */
+@UtilityClass
+public class Bm25 {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    public static float idf(int pageCount, int pagesWithLemma) {
+        return (float) Math.log(1 + (pageCount - pagesWithLemma + 0.5) / (pagesWithLemma + 0.5));
+    }
+
+    public static float termWeight(float rank, float pageLength, float averagePageLength) {
+        float lengthNorm = averagePageLength > 0 ? 1 - B + B * pageLength / averagePageLength : 1;
+        return rank * (K1 + 1) / (rank + K1 * lengthNorm);
+    }
+
+    /**
+     * Term weight for a page of average length, for callers that do not know page lengths.
+     */
+    public static float termWeight(float rank) {
+        return rank * (K1 + 1) / (rank + K1);
+    }
+}
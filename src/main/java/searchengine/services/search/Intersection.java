@@ -0,0 +1,61 @@
+package searchengine.services.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Conjunctive evaluation over posting lists sorted by page id. The lists are walked rarest first:
+ * the current candidate is galloped to in every other list, and whenever a list holds a larger
+ * page id that id becomes the candidate and the rarest list gallops to it. The walk ends as soon
+ * as any list is exhausted, so a common lemma costs about a logarithmic skip per rare posting
+ * instead of a scan of its whole list. A match is scored with BM25: the term weights of the
+ * page, each multiplied by the idf of its lemma among the pages of the site.
+ */
+final class Intersection {
+
+    interface MatchConsumer {
+        void accept(int pageId, float score);
+    }
+
+    private Intersection() {
+    }
+
+    static void forEachMatch(Collection<PostingList> postingLists, int pageCount, MatchConsumer consumer) {
+        if (postingLists.isEmpty()) {
+            return;
+        }
+        List<PostingList> lists = new ArrayList<>(postingLists);
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        int[] cursors = new int[lists.size()];
+        float[] idf = new float[lists.size()];
+        for (int j = 0; j < lists.size(); j++) {
+            idf[j] = Bm25.idf(pageCount, lists.get(j).size());
+        }
+        PostingList rarest = lists.get(0);
+        while (cursors[0] < rarest.size()) {
+            int candidate = rarest.pageId(cursors[0]);
+            float score = idf[0] * rarest.weight(cursors[0]);
+            boolean matched = true;
+            for (int j = 1; j < lists.size(); j++) {
+                PostingList list = lists.get(j);
+                cursors[j] = list.advance(cursors[j], candidate);
+                if (cursors[j] == list.size()) {
+                    return;
+                }
+                int pageId = list.pageId(cursors[j]);
+                if (pageId != candidate) {
+                    cursors[0] = rarest.advance(cursors[0], pageId);
+                    matched = false;
+                    break;
+                }
+                score += idf[j] * list.weight(cursors[j]);
+            }
+            if (matched) {
+                consumer.accept(candidate, score);
+                cursors[0]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package searchengine.services.search;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.model.SiteEntity;
+import searchengine.repository.SiteRepository;
+import searchengine.services.indexing.PageReindexedEvent;
+import searchengine.services.indexing.SiteIndexedEvent;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Posting lists of every live site held in memory, so a search touches the database only for
+ * the rows of the pages it returns. Sites are loaded from indexes_table on startup and again
+ * whenever a new generation goes live; single page reindexes are applied to the loaded lists.
+ * Loading runs on a thread of its own, sites not loaded yet are simply not searched.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "search.engine", havingValue = "memory")
+public class InvertedIndex {
+
+    private static final String SELECT_POSTINGS = "SELECT l.lemma, i.page_id, i.rank_lemmas FROM lemmas l "
+            + "JOIN indexes_table i ON i.site_id = l.site_id AND i.lemma_id = l.id "
+            + "WHERE l.site_id = ? ORDER BY i.lemma_id, i.page_id";
+
+    private final SiteRepository siteRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final Map<String, SiteIndex> sites = new ConcurrentHashMap<>();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inverted-index-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InvertedIndex(SiteRepository siteRepository, JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.siteRepository = siteRepository;
+        this.eventPublisher = eventPublisher;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        for (SiteEntity siteEntity : siteRepository.findAllLive()) {
+            loader.execute(() -> load(siteEntity.getId(), siteEntity.getUrl(), siteEntity.getName()));
+        }
+    }
+
+    @EventListener
+    public void onSiteIndexed(SiteIndexedEvent event) {
+        loader.execute(() -> load(event.getSiteId(), event.getUrl(), event.getName()));
+    }
+
+    @EventListener
+    public void onPageReindexed(PageReindexedEvent event) {
+        SiteIndex siteIndex = sites.get(event.getUrl());
+        if (siteIndex != null && siteIndex.getSiteId() == event.getSiteId()) {
+            siteIndex.updatePage(event.getPageId(), event.getLemmaRanks());
+        } else {
+            loader.execute(() -> load(event.getSiteId(), event.getUrl(), event.getName()));
+        }
+    }
+
+    public Collection<SiteIndex> getSites() {
+        return sites.values();
+    }
+
+    public SiteIndex getSite(String url) {
+        return sites.get(url);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private void load(int siteId, String url, String name) {
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, PostingList.Builder> postings = new HashMap<>();
+            long[] rows = new long[1];
+            streamingJdbcTemplate.query(SELECT_POSTINGS, resultSet -> {
+                postings.computeIfAbsent(resultSet.getString(1), lemma -> new PostingList.Builder())
+                        .add(resultSet.getInt(2), resultSet.getFloat(3));
+                rows[0]++;
+            }, siteId);
+            sites.put(url, SiteIndex.build(siteId, new SearchSite(url, name), postings));
+            eventPublisher.publishEvent(new SiteIndexLoadedEvent(url));
+            log.info("Inverted index of " + url + " loaded: " + postings.size() + " lemmas, " + rows[0]
+                    + " postings in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            log.warn("Inverted index of " + url + " could not be loaded due to " + e);
+        }
+    }
+}
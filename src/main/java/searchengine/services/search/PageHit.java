@@ -0,0 +1,10 @@
+package searchengine.services.search;
+
+import lombok.Value;
+
+@Value
+public class PageHit {
+    SearchSite site;
+    int pageId;
+    float score;
+}
@@ -0,0 +1,137 @@
+package searchengine.services.search;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Pages containing one lemma with the BM25 term weight of the lemma on each, as parallel
+ * primitive arrays sorted by page id. Immutable: a changed page produces a new list,
+ * so readers never need a lock.
+ */
+public final class PostingList {
+
+    static final PostingList EMPTY = new PostingList(new int[0], new float[0]);
+
+    private final int[] pageIds;
+    private final float[] weights;
+
+    PostingList(int[] pageIds, float[] weights) {
+        this.pageIds = pageIds;
+        this.weights = weights;
+    }
+
+    public int size() {
+        return pageIds.length;
+    }
+
+    public int pageId(int index) {
+        return pageIds[index];
+    }
+
+    public float weight(int index) {
+        return weights[index];
+    }
+
+    public int indexOf(int pageId) {
+        return Arrays.binarySearch(pageIds, pageId);
+    }
+
+    /**
+     * Returns the first index at or after from whose page id is not below the target, or size()
+     * when there is none. The distance is doubled until the target is passed and only that last
+     * range is binary searched, so skipping k postings costs O(log k) rather than O(k).
+     */
+    public int advance(int from, int target) {
+        if (from >= pageIds.length || pageIds[from] >= target) {
+            return from;
+        }
+        int low = from;
+        int step = 1;
+        int high = from + step;
+        while (high < pageIds.length && pageIds[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        int index = Arrays.binarySearch(pageIds, low + 1, Math.min(high, pageIds.length - 1) + 1, target);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    PostingList with(int pageId, float weight) {
+        int index = indexOf(pageId);
+        if (index >= 0) {
+            float[] newWeights = weights.clone();
+            newWeights[index] = weight;
+            return new PostingList(pageIds, newWeights);
+        }
+        int insertAt = -index - 1;
+        int[] newPageIds = new int[pageIds.length + 1];
+        float[] newWeights = new float[weights.length + 1];
+        System.arraycopy(pageIds, 0, newPageIds, 0, insertAt);
+        System.arraycopy(weights, 0, newWeights, 0, insertAt);
+        newPageIds[insertAt] = pageId;
+        newWeights[insertAt] = weight;
+        System.arraycopy(pageIds, insertAt, newPageIds, insertAt + 1, pageIds.length - insertAt);
+        System.arraycopy(weights, insertAt, newWeights, insertAt + 1, weights.length - insertAt);
+        return new PostingList(newPageIds, newWeights);
+    }
+
+    PostingList without(int pageId) {
+        int index = indexOf(pageId);
+        if (index < 0) {
+            return this;
+        }
+        int[] newPageIds = new int[pageIds.length - 1];
+        float[] newWeights = new float[weights.length - 1];
+        System.arraycopy(pageIds, 0, newPageIds, 0, index);
+        System.arraycopy(weights, 0, newWeights, 0, index);
+        System.arraycopy(pageIds, index + 1, newPageIds, index, pageIds.length - index - 1);
+        System.arraycopy(weights, index + 1, newWeights, index, weights.length - index - 1);
+        return new PostingList(newPageIds, newWeights);
+    }
+
+    /**
+     * Collects the postings of a lemma while they are streamed from the database in page id order.
+     * The ranks are kept as they are until the page lengths of the whole site are known.
+     */
+    static final class Builder {
+        private int[] pageIds = new int[8];
+        private float[] ranks = new float[8];
+        private int size;
+
+        void add(int pageId, float rank) {
+            if (size == pageIds.length) {
+                pageIds = Arrays.copyOf(pageIds, size * 2);
+                ranks = Arrays.copyOf(ranks, size * 2);
+            }
+            pageIds[size] = pageId;
+            ranks[size] = rank;
+            size++;
+        }
+
+        void addPageLengths(Map<Integer, Float> pageLengths) {
+            for (int i = 0; i < size; i++) {
+                pageLengths.merge(pageIds[i], ranks[i], Float::sum);
+            }
+        }
+
+        /**
+         * Builds the list weighting every page as one of average length, for callers that do not know page lengths.
+         */
+        PostingList build() {
+            float[] weights = new float[size];
+            for (int i = 0; i < size; i++) {
+                weights[i] = Bm25.termWeight(ranks[i]);
+            }
+            return new PostingList(Arrays.copyOf(pageIds, size), weights);
+        }
+
+        PostingList build(Map<Integer, Float> pageLengths, float averagePageLength) {
+            float[] weights = new float[size];
+            for (int i = 0; i < size; i++) {
+                weights[i] = Bm25.termWeight(ranks[i], pageLengths.get(pageIds[i]), averagePageLength);
+            }
+            return new PostingList(Arrays.copyOf(pageIds, size), weights);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package searchengine.services.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.dto.api_search.ApiSearchResult;
+import searchengine.util.SnippetBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the page of hits being returned into search results. A hit whose page is gone or has no
+ * stored text is dropped and the next ranked hit takes its place, so hits are checked in rank order
+ * from the first one and every request pages through the same sequence of results. The check only
+ * asks the database which pages qualify, a chunk at a time and only as far as the requested page
+ * reaches; page text is read and snippets are built for the returned hits alone.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchResultAssembler {
+
+    private static final int CHUNK_SIZE = 100;
+    private static final String SELECT_PAGES_WITH_TEXT = "SELECT id FROM pages WHERE id IN (:ids) "
+            + "AND text IS NOT NULL AND text <> ''";
+    private static final String SELECT_PAGES = "SELECT id, path, title, text FROM pages WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final SnippetBuilder snippetBuilder;
+
+    public Window assemble(List<PageHit> hits, Collection<String> lemmas, int offset, int limit) {
+        long wanted = (long) offset + limit;
+        List<PageHit> kept = new ArrayList<>((int) Math.min(wanted, hits.size()));
+        int dropped = 0;
+        int from = 0;
+        while (from < hits.size() && kept.size() < wanted) {
+            List<PageHit> chunk = hits.subList(from, (int) Math.min(hits.size(), from + Math.min(wanted - kept.size(), CHUNK_SIZE)));
+            Set<Integer> pagesWithText = findPagesWithText(chunk);
+            for (PageHit hit : chunk) {
+                if (pagesWithText.contains(hit.getPageId())) {
+                    kept.add(hit);
+                } else {
+                    dropped++;
+                }
+            }
+            from += chunk.size();
+        }
+        if (kept.size() <= offset) {
+            return new Window(List.of(), dropped);
+        }
+        float maxScore = kept.get(0).getScore();
+        List<PageHit> window = kept.subList(offset, kept.size());
+        Map<Integer, Map<String, Object>> pages = loadPages(window);
+        List<ApiSearchResult> results = new ArrayList<>(window.size());
+        for (PageHit hit : window) {
+            Map<String, Object> page = pages.get(hit.getPageId());
+            if (page == null) {
+                dropped++;
+                continue;
+            }
+            results.add(toResult(hit, page, snippetBuilder.build((String) page.get("text"), lemmas), maxScore));
+        }
+        return new Window(results, dropped);
+    }
+
+    private ApiSearchResult toResult(PageHit hit, Map<String, Object> page, String snippet, float maxScore) {
+        ApiSearchResult apiSearchResult = new ApiSearchResult();
+        apiSearchResult.setSite(hit.getSite().getUrl());
+        apiSearchResult.setSiteName(hit.getSite().getName());
+        apiSearchResult.setUri((String) page.get("path"));
+        apiSearchResult.setTitle((String) page.get("title"));
+        apiSearchResult.setSnippet(snippet);
+        apiSearchResult.setRelevance(maxScore > 0 ? hit.getScore() / maxScore : 0);
+        return apiSearchResult;
+    }
+
+    private Set<Integer> findPagesWithText(List<PageHit> hits) {
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(SELECT_PAGES_WITH_TEXT,
+                new MapSqlParameterSource("ids", pageIdsOf(hits)), Integer.class));
+    }
+
+    private Map<Integer, Map<String, Object>> loadPages(List<PageHit> hits) {
+        Map<Integer, Map<String, Object>> pages = new HashMap<>();
+        for (Map<String, Object> row : namedParameterJdbcTemplate.queryForList(SELECT_PAGES,
+                new MapSqlParameterSource("ids", pageIdsOf(hits)))) {
+            pages.put(((Number) row.get("id")).intValue(), row);
+        }
+        return pages;
+    }
+
+    private List<Integer> pageIdsOf(List<PageHit> hits) {
+        return hits.stream().map(PageHit::getPageId).collect(Collectors.toList());
+    }
+
+    /**
+     * The requested page of results and the number of hits dropped on the way to it,
+     * which the reported count leaves out.
+     */
+    @Value
+    public static class Window {
+        List<ApiSearchResult> results;
+        int dropped;
+    }
+}
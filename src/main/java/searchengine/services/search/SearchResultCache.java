@@ -0,0 +1,101 @@
+package searchengine.services.search;
+
+import lombok.Getter;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import searchengine.dto.api_search.ApiSearchResponse;
+import searchengine.services.indexing.PageReindexedEvent;
+import searchengine.services.indexing.SiteIndexedEvent;
+import searchengine.util.ConcurrentLruCache;
+import searchengine.util.PropertiesProject;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Successful search responses keyed by the sorted query lemmas, the site filter and the requested
+ * window, so differently worded queries with the same lemmas share an entry. Entries expire after
+ * the configured ttl. When the index of a site changes, only the entries searching that site and
+ * the entries searching all sites are dropped. Each entry remembers the version of its scope it was
+ * computed against, so a search that was still running during an invalidation cannot bring its
+ * outdated response back into the cache.
+ */
+@Component
+public class SearchResultCache {
+
+    @Getter
+    private final ConcurrentLruCache<String, CachedResponse> cache;
+    private final long ttl;
+    private static final String ALL_SITES = "";
+
+    private final ConcurrentMap<String, AtomicLong> scopeVersions = new ConcurrentHashMap<>();
+
+    public SearchResultCache(PropertiesProject propertiesProject) {
+        this.cache = new ConcurrentLruCache<>(propertiesProject.getSearchCacheCapacity());
+        this.ttl = propertiesProject.getSearchCacheTtl();
+    }
+
+    public ApiSearchResponse get(Set<String> lemmas, String url, int offset, int limit, Supplier<ApiSearchResponse> search) {
+        String scope = url == null ? ALL_SITES : url;
+        long version = versionOf(scope);
+        ApiSearchResponse[] computed = new ApiSearchResponse[1];
+        CachedResponse cached = cache.get(key(lemmas, scope, offset, limit), key -> {
+            computed[0] = search.get();
+            return computed[0].isResult()
+                    ? new CachedResponse(computed[0], scope, version, System.currentTimeMillis() + ttl) : null;
+        }, this::isValid);
+        return cached != null ? cached.response : computed[0];
+    }
+
+    @EventListener
+    public void onSiteIndexed(SiteIndexedEvent event) {
+        invalidate(event.getUrl());
+    }
+
+    @EventListener
+    public void onPageReindexed(PageReindexedEvent event) {
+        invalidate(event.getUrl());
+    }
+
+    @EventListener
+    public void onSiteIndexLoaded(SiteIndexLoadedEvent event) {
+        invalidate(event.getUrl());
+    }
+
+    public void invalidate(String siteUrl) {
+        scopeVersions.computeIfAbsent(siteUrl, scope -> new AtomicLong()).incrementAndGet();
+        scopeVersions.computeIfAbsent(ALL_SITES, scope -> new AtomicLong()).incrementAndGet();
+        cache.invalidateIf(cached -> cached.scope.equals(siteUrl) || cached.scope.equals(ALL_SITES));
+    }
+
+    private long versionOf(String scope) {
+        AtomicLong version = scopeVersions.get(scope);
+        return version == null ? 0 : version.get();
+    }
+
+    private boolean isValid(CachedResponse cached) {
+        return cached.scopeVersion == versionOf(cached.scope) && cached.expiresAt > System.currentTimeMillis();
+    }
+
+    private static String key(Set<String> lemmas, String scope, int offset, int limit) {
+        return String.join(" ", new TreeSet<>(lemmas)) + '\n' + scope + '\n' + offset + '\n' + limit;
+    }
+
+    static final class CachedResponse {
+        private final ApiSearchResponse response;
+        private final String scope;
+        private final long scopeVersion;
+        private final long expiresAt;
+
+        private CachedResponse(ApiSearchResponse response, String scope, long scopeVersion, long expiresAt) {
+            this.response = response;
+            this.scope = scope;
+            this.scopeVersion = scopeVersion;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package searchengine.services.search;
+
+import lombok.Value;
+
+@Value
+public class SearchSite {
+    String url;
+    String name;
+}
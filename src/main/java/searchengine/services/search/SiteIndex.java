@@ -0,0 +1,107 @@
+package searchengine.services.search;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Posting lists of the live generation of one site, keyed by lemma, with the page lengths BM25
+ * normalises by. Term weights are computed against the average page length at load time; single
+ * page updates use the current average and leave the other weights alone until the next reload.
+ */
+public class SiteIndex {
+
+    @Getter
+    private final int siteId;
+    @Getter
+    private final SearchSite site;
+    private final Map<String, PostingList> postings;
+    private final Map<Integer, Float> pageLengths;
+    private volatile double totalPageLength;
+
+    SiteIndex(int siteId, SearchSite site, Map<String, PostingList> postings, Map<Integer, Float> pageLengths) {
+        this.siteId = siteId;
+        this.site = site;
+        this.postings = new ConcurrentHashMap<>(postings);
+        this.pageLengths = new ConcurrentHashMap<>(pageLengths);
+        this.totalPageLength = pageLengths.values().stream().mapToDouble(Float::doubleValue).sum();
+    }
+
+    static SiteIndex build(int siteId, SearchSite site, Map<String, PostingList.Builder> builders) {
+        Map<Integer, Float> pageLengths = new HashMap<>();
+        builders.values().forEach(builder -> builder.addPageLengths(pageLengths));
+        float averagePageLength = averageLength(pageLengths.size(),
+                pageLengths.values().stream().mapToDouble(Float::doubleValue).sum());
+        Map<String, PostingList> postings = new HashMap<>(builders.size() * 2);
+        builders.forEach((lemma, builder) -> postings.put(lemma, builder.build(pageLengths, averagePageLength)));
+        return new SiteIndex(siteId, site, postings, pageLengths);
+    }
+
+    public PostingList get(String lemma) {
+        return postings.get(lemma);
+    }
+
+    public int getLemmaCount() {
+        return postings.size();
+    }
+
+    public int getPageCount() {
+        return pageLengths.size();
+    }
+
+    /**
+     * Offers every page containing all of the lemmas to the top hits, scored with BM25.
+     */
+    public void match(Collection<String> lemmas, TopHits topHits) {
+        List<PostingList> lists = new ArrayList<>(lemmas.size());
+        for (String lemma : lemmas) {
+            PostingList postingList = postings.get(lemma);
+            if (postingList == null) {
+                return;
+            }
+            lists.add(postingList);
+        }
+        Intersection.forEachMatch(lists, getPageCount(), (pageId, score) -> topHits.offer(site, pageId, score));
+    }
+
+    /**
+     * Replaces the postings of one page. Every list is searched for the page, which is fine
+     * for single page updates but not meant for bulk changes; those reload the site.
+     */
+    synchronized void updatePage(int pageId, Map<String, Integer> lemmaRanks) {
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            if (!lemmaRanks.containsKey(entry.getKey()) && entry.getValue().indexOf(pageId) >= 0) {
+                PostingList remaining = entry.getValue().without(pageId);
+                if (remaining.size() == 0) {
+                    postings.remove(entry.getKey());
+                } else {
+                    entry.setValue(remaining);
+                }
+            }
+        }
+        Float oldLength = lemmaRanks.isEmpty() ? pageLengths.remove(pageId) : null;
+        float pageLength = 0;
+        for (Integer rank : lemmaRanks.values()) {
+            pageLength += rank;
+        }
+        if (!lemmaRanks.isEmpty()) {
+            oldLength = pageLengths.put(pageId, pageLength);
+        }
+        totalPageLength += pageLength - (oldLength == null ? 0 : oldLength);
+        float averagePageLength = averageLength(pageLengths.size(), totalPageLength);
+        for (Map.Entry<String, Integer> lemmaRank : lemmaRanks.entrySet()) {
+            float weight = Bm25.termWeight(lemmaRank.getValue(), pageLength, averagePageLength);
+            postings.merge(lemmaRank.getKey(), PostingList.EMPTY.with(pageId, weight),
+                    (existing, single) -> existing.with(pageId, weight));
+        }
+    }
+
+    private static float averageLength(int pageCount, double totalLength) {
+        return pageCount == 0 ? 0 : (float) (totalLength / pageCount);
+    }
+}
@@ -0,0 +1,11 @@
+package searchengine.services.search;
+
+import lombok.Value;
+
+/**
+ * Published once the in-memory postings of a site were (re)loaded and replaced the previous ones.
+ */
+@Value
+public class SiteIndexLoadedEvent {
+    String url;
+}
@@ -0,0 +1,116 @@
+package searchengine.services.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the best scored pages of a query in a bounded min-heap over primitive arrays, so only
+ * capacity pages are ever retained however many match. The arrays start small and grow with
+ * the number of matches, never past the capacity. Every offered page is counted.
+ */
+public class TopHits {
+
+    private static final int INITIAL_SIZE = 16;
+
+    private final int capacity;
+    private int[] pageIds;
+    private float[] scores;
+    private SearchSite[] sites;
+    private int size;
+    private long total;
+
+    public TopHits(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        int initialSize = Math.min(this.capacity, INITIAL_SIZE);
+        this.pageIds = new int[initialSize];
+        this.scores = new float[initialSize];
+        this.sites = new SearchSite[initialSize];
+    }
+
+    /**
+     * Retains the hits of the page of results from offset to offset + limit and one more page of
+     * hits after it, which replace hits the results can't be built for.
+     */
+    public static TopHits forWindow(int offset, int limit) {
+        return new TopHits((int) Math.min(Integer.MAX_VALUE, (long) offset + 2L * limit));
+    }
+
+    public void offer(SearchSite site, int pageId, float score) {
+        total++;
+        if (size < capacity) {
+            if (size == pageIds.length) {
+                grow();
+            }
+            set(size, site, pageId, score);
+            siftUp(size++);
+        } else if (capacity > 0 && score > scores[0]) {
+            set(0, site, pageId, score);
+            siftDown(0);
+        }
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public List<PageHit> sortedDescending() {
+        List<PageHit> hits = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            hits.add(new PageHit(sites[i], pageIds[i], scores[i]));
+        }
+        hits.sort((first, second) -> Float.compare(second.getScore(), first.getScore()));
+        return hits;
+    }
+
+    private void grow() {
+        int newLength = (int) Math.min(capacity, Math.max(INITIAL_SIZE, 2L * pageIds.length));
+        pageIds = Arrays.copyOf(pageIds, newLength);
+        scores = Arrays.copyOf(scores, newLength);
+        sites = Arrays.copyOf(sites, newLength);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (right < size && scores[right] < scores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(smallest, index);
+            index = smallest;
+        }
+    }
+
+    private void set(int index, SearchSite site, int pageId, float score) {
+        sites[index] = site;
+        pageIds[index] = pageId;
+        scores[index] = score;
+    }
+
+    private void swap(int first, int second) {
+        SearchSite site = sites[first];
+        int pageId = pageIds[first];
+        float score = scores[first];
+        set(first, sites[second], pageIds[second], scores[second]);
+        set(second, site, pageId, score);
+    }
+}
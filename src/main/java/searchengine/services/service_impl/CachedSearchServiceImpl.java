@@ -0,0 +1,44 @@
+package searchengine.services.service_impl;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import searchengine.dto.api_search.ApiSearchResponse;
+import searchengine.services.interfaces.SearchService;
+import searchengine.services.search.SearchResultCache;
+import searchengine.util.LemmaExecute;
+
+import java.util.Set;
+
+/**
+ * Serves repeated queries from {@link SearchResultCache} in front of the configured search engine.
+ * The query is lemmatized once here and the lemmas are handed to the engine.
+ */
+@Service
+@Primary
+public class CachedSearchServiceImpl implements SearchService {
+
+    private final SearchService searchEngine;
+    private final SearchResultCache searchResultCache;
+
+    public CachedSearchServiceImpl(@Qualifier("searchEngine") SearchService searchEngine,
+                                   SearchResultCache searchResultCache) {
+        this.searchEngine = searchEngine;
+        this.searchResultCache = searchResultCache;
+    }
+
+    @Override
+    public ResponseEntity<ApiSearchResponse> search(String query, String url, int offset, int limit) {
+        return search(query == null || query.isEmpty() ? Set.of() : LemmaExecute.getLemmaList(query), url, offset, limit);
+    }
+
+    @Override
+    public ResponseEntity<ApiSearchResponse> search(Set<String> lemmas, String url, int offset, int limit) {
+        if (lemmas.isEmpty()) {
+            return searchEngine.search(lemmas, url, offset, limit);
+        }
+        return ResponseEntity.ok(searchResultCache.get(lemmas, url, offset, limit,
+                () -> searchEngine.search(lemmas, url, offset, limit).getBody()));
+    }
+}
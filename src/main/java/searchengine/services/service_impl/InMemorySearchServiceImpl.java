@@ -0,0 +1,85 @@
+package searchengine.services.service_impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import searchengine.dto.api_search.ApiSearchResponse;
+import searchengine.services.interfaces.SearchService;
+import searchengine.services.search.InvertedIndex;
+import searchengine.services.search.SearchResultAssembler;
+import searchengine.services.search.SiteIndex;
+import searchengine.services.search.TopHits;
+import searchengine.util.LemmaExecute;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Answers queries from the posting lists of {@link InvertedIndex}; the only query to the database
+ * reads the rows of the pages that are returned. Enabled with search.engine: memory.
+ */
+@Slf4j
+@Service
+@Qualifier("searchEngine")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "search.engine", havingValue = "memory")
+public class InMemorySearchServiceImpl implements SearchService {
+
+    private final InvertedIndex invertedIndex;
+    private final SearchResultAssembler searchResultAssembler;
+
+    @Override
+    public ResponseEntity<ApiSearchResponse> search(String query, String url, int offset, int limit) {
+        return search(query == null || query.isEmpty() ? Set.of() : LemmaExecute.getLemmaList(query), url, offset, limit);
+    }
+
+    @Override
+    public ResponseEntity<ApiSearchResponse> search(Set<String> lemmas, String url, int offset, int limit) {
+        long start = System.currentTimeMillis();
+        ApiSearchResponse apiSearchResponse = new ApiSearchResponse();
+        apiSearchResponse.setResult(false);
+        Collection<SiteIndex> siteIndexes = getSiteIndexes(url);
+        if (lemmas.isEmpty()) {
+            apiSearchResponse.setMessageError("Query is incorrect or empty");
+        } else if (siteIndexes.isEmpty()) {
+            apiSearchResponse.setMessageError("Page is located outside the sites specified in the configuration file");
+        } else if (!anyLemmaIndexed(siteIndexes, lemmas)) {
+            apiSearchResponse.setMessageError("Query is incorrect or empty");
+        } else {
+            TopHits topHits = TopHits.forWindow(offset, limit);
+            for (SiteIndex siteIndex : siteIndexes) {
+                siteIndex.match(lemmas, topHits);
+            }
+            SearchResultAssembler.Window window = searchResultAssembler.assemble(
+                    topHits.sortedDescending(), lemmas, offset, limit);
+            apiSearchResponse.setResult(true);
+            apiSearchResponse.setCount((int) (topHits.getTotal() - window.getDropped()));
+            apiSearchResponse.setData(window.getResults());
+        }
+        log.info("In-memory search for " + lemmas + " took " + (System.currentTimeMillis() - start) + " ms");
+        return ResponseEntity.ok(apiSearchResponse);
+    }
+
+    private Collection<SiteIndex> getSiteIndexes(String url) {
+        if (url == null || url.isEmpty()) {
+            return invertedIndex.getSites();
+        }
+        SiteIndex siteIndex = invertedIndex.getSite(url);
+        return siteIndex == null ? List.of() : List.of(siteIndex);
+    }
+
+    private boolean anyLemmaIndexed(Collection<SiteIndex> siteIndexes, Set<String> lemmas) {
+        for (SiteIndex siteIndex : siteIndexes) {
+            for (String lemma : lemmas) {
+                if (siteIndex.get(lemma) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -3,11 +3,10 @@ package searchengine.services.service_impl;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.jsoup.Connection;
 import org.jsoup.nodes.Document;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import searchengine.config.Site;
 import searchengine.config.SitesList;
 import searchengine.dto.api_response.ApiResponse;
@@ -17,12 +16,26 @@ import searchengine.repository.IndexRepository;
 import searchengine.repository.LemmaRepository;
 import searchengine.repository.PageRepository;
 import searchengine.repository.SiteRepository;
+import searchengine.services.IndexingMode;
 import searchengine.services.SiteParser;
+import searchengine.services.crawler.*;
+import searchengine.services.indexing.IndexingPipeline;
+import searchengine.services.indexing.LemmaIndexBuffer;
+import searchengine.services.indexing.BulkIndexWriter;
+import searchengine.services.indexing.PageDeltaIndexer;
+import searchengine.services.indexing.PageInsertBatcher;
+import searchengine.services.indexing.PageReindexedEvent;
+import searchengine.services.indexing.SiteGenerations;
+import searchengine.services.indexing.SiteHeartbeat;
+import searchengine.services.indexing.SiteIndexedEvent;
 import searchengine.services.interfaces.IndexingService;
 import searchengine.util.ConnectionUtil;
+import searchengine.util.PageText;
+import searchengine.util.ContentHash;
 import searchengine.util.LemmaExecute;
 import searchengine.util.PropertiesProject;
 import searchengine.util.ReworkString;
+import searchengine.util.UrlCanonicalizer;
 
 import javax.net.ssl.SSLHandshakeException;
 import java.security.cert.CertPathValidatorException;
@@ -30,7 +43,10 @@ import java.security.cert.CertificateExpiredException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -39,8 +55,12 @@ import java.util.stream.Stream;
 @RequiredArgsConstructor
 public class IndexingServiceImpl implements IndexingService {
 
+    private static final int DUPLICATES_CHUNK_SIZE = 1000;
+
     private final SitesList sites;
-    private ForkJoinPool forkJoinPool = new ForkJoinPool();
+    private final CrawlEngine crawlEngine;
+    private final PageFetcher pageFetcher;
+    private final CrawlCheckpointStore checkpointStore;
     private final PageRepository pageRepository;
     private final SiteRepository siteRepository;
     private final IndexRepository indexRepository;
@@ -49,28 +69,49 @@ public class IndexingServiceImpl implements IndexingService {
 
     @Getter
     private final PropertiesProject propertiesProject;
+    @Getter
+    private final UrlCanonicalizer urlCanonicalizer;
+    @Getter
+    private final IndexingPipeline indexingPipeline;
+    private final BulkIndexWriter bulkIndexWriter;
+    private final PageInsertBatcher pageInsertBatcher;
+    private final SiteGenerations siteGenerations;
+    private final PageDeltaIndexer pageDeltaIndexer;
+    private final SiteHeartbeat siteHeartbeat;
+    private final ApplicationEventPublisher eventPublisher;
     private volatile boolean isIndexing = false;
+    private volatile boolean incrementalIndexing = false;
 
-    @Getter
-    private Set<String> webPages;
 
     @Getter
     private ConcurrentMap<String, Status> siteStatusMap;
-    private ConcurrentMap<Integer, Map<String, LemmaEntity>> lemmasMap;
-    private ConcurrentMap<Integer, Set<IndexEntity>> indexMap;
+    private ConcurrentMap<Integer, LemmaIndexBuffer> lemmaIndexBuffers;
+    private ConcurrentMap<Integer, Set<Integer>> visitedPagesMap;
+    private ConcurrentMap<Integer, ReadWriteLock> siteLocks;
+    private ConcurrentMap<Integer, SimHashIndex> simHashIndexMap;
+    /**
+     * Pages whose indexed content was replaced during the crawl; their near-duplicates are checked again at its end.
+     */
+    private ConcurrentMap<Integer, Set<Integer>> changedPagesMap;
+    /**
+     * Pages indexed one by one while a full rebuild of their site runs: they are written to the live
+     * generation and indexed again once the rebuild goes live, which may have crawled them earlier.
+     */
+    private final ConcurrentMap<String, Set<String>> pagesToReplay = new ConcurrentHashMap<>();
 
     @Override
-    public ResponseEntity<ApiResponse> startIndexing() {
+    public ResponseEntity<ApiResponse> startIndexing(boolean incremental) {
         ApiResponse apiResponse = new ApiResponse();
-        deleteAllDataFromDatabase();
         if (isIndexing) {
             apiResponse.setResult(false);
             apiResponse.setMessageError("Indexing already started");
             log.info("Indexing already started");
         } else {
+            isIndexing = true;
+            incrementalIndexing = incremental;
             new Thread(this::indexAll).start();
             apiResponse.setResult(true);
-            log.info("Indexing started");
+            log.info(incremental ? "Incremental indexing started" : "Indexing started");
         }
         return ResponseEntity.ok(apiResponse);
     }
@@ -115,74 +156,141 @@ public class IndexingServiceImpl implements IndexingService {
     private void indexAll() {
         List<Site> allSiteConfig = sites.getSites();
         isIndexing = true;
-        forkJoinPool = new ForkJoinPool();
-        lemmasMap = new ConcurrentHashMap<>();
-        indexMap = new ConcurrentHashMap<>();
-        webPages = Collections.synchronizedSet(new HashSet<>());
+        lemmaIndexBuffers = new ConcurrentHashMap<>();
+        visitedPagesMap = new ConcurrentHashMap<>();
+        siteLocks = new ConcurrentHashMap<>();
+        simHashIndexMap = new ConcurrentHashMap<>();
+        changedPagesMap = new ConcurrentHashMap<>();
         siteStatusMap = new ConcurrentHashMap<>();
         for (Site site : allSiteConfig) {
-            Thread thread = new Thread(() -> indexSingleSite(site));
-            thread.setName(site.getName());
-            thread.start();
+            indexSingleSite(site);
         }
     }
 
     public void indexSinglePage(String pageUrl) {
+        if (deferUntilFirstBuildGoesLive(ReworkString.getStartPage(pageUrl), pageUrl)) {
+            return;
+        }
         SiteEntity siteEntity = findOrCreateNewSiteEntity(pageUrl);
-        Connection connection = ConnectionUtil.getConnection(pageUrl, propertiesProject.getUserAgent(), propertiesProject.getReferrer());
-        Connection.Response response = ConnectionUtil.getResponse(connection);
-        Document document = ConnectionUtil.getDocument(connection);
+        pagesToReplay.computeIfAbsent(siteEntity.getUrl(), url -> ConcurrentHashMap.newKeySet()).add(pageUrl);
+        FetchResult fetchResult = pageFetcher.fetchNow(pageUrl);
         String pathToSave = ReworkString.getPathToSave(pageUrl, siteEntity.getUrl());
-        int httpStatusCode = response.statusCode();
+        int httpStatusCode = fetchResult.getStatusCode();
 
-        PageEntity deletePageEntity = deleteOldPageEntity(pathToSave, siteEntity);
-        String html = "";
-        PageEntity pageEntity = new PageEntity(siteEntity, pathToSave, httpStatusCode, html);
-        if (httpStatusCode != 200) {
-            savePageAndSiteStatusTime(pageEntity, html, siteEntity);
+        PageEntity pageEntity = pageRepository.findPageEntityByPathAndSite(pathToSave, siteEntity);
+        if (pageEntity == null) {
+            pageEntity = new PageEntity(siteEntity, pathToSave, httpStatusCode, "");
         } else {
+            pageEntity.setCode(httpStatusCode);
+        }
+        pageEntity.setEtag(fetchResult.getEtag());
+        pageEntity.setLastModified(fetchResult.getLastModified());
+        pageEntity.setContentHash(httpStatusCode == 200 ? ContentHash.of(fetchResult.getBody()) : null);
+        PageText pageText = PageText.EMPTY;
+        String html = "";
+        if (httpStatusCode == 200) {
+            Document document = ConnectionUtil.parse(fetchResult);
             html = document.outerHtml();
-            if (deletePageEntity != null) {
-                reduceLemmaFrequenciesByOnePage(html, siteEntity.getId());
-            }
-            savePageAndSiteStatusTime(pageEntity, html, siteEntity);
-            log.info("Page indexed: " + pathToSave);
-            extractLemmas(html, pageEntity, siteEntity);
+            pageText = PageText.of(document);
+        }
+        pageEntity.setContent(html);
+        pageEntity.setTitle(pageText.getTitle());
+        pageEntity.setText(pageText.getText());
+        pageEntity.setDuplicateOf(null);
+        List<PageEntity> duplicates = pageEntity.getId() == 0 ? List.of()
+                : pageRepository.findDuplicatesOf(siteEntity.getId(), List.of(pageEntity.getId()));
+        reindexSinglePage(siteEntity, pageEntity);
+        log.info("Page indexed: " + pathToSave);
+        for (PageEntity duplicate : duplicates) {
+            duplicate.setDuplicateOf(null);
+            reindexSinglePage(siteEntity, duplicate);
+            log.info("Page " + duplicate.getPath() + " is no longer a near-duplicate of " + pathToSave);
         }
         fixSiteStatusAfterSinglePageIndexed(siteEntity);
+        keepForReplayIfRebuilding(siteEntity, pageUrl);
     }
 
-    private PageEntity deleteOldPageEntity(String path, SiteEntity siteEntity) {
-        PageEntity deletePageEntity = pageRepository.findPageEntityByPathAndSite(path, siteEntity);
-        if (deletePageEntity == null) {
-            return null;
+    private void reindexSinglePage(SiteEntity siteEntity, PageEntity pageEntity) {
+        Map<String, Integer> lemmaRanks = pageEntity.getCode() == 200 ? getAllLemmasPage(pageEntity) : Map.of();
+        PageDeltaIndexer.PageDelta delta = pageDeltaIndexer.reindexPage(pageEntity, lemmaRanks);
+        log.info("Page " + pageEntity.getPath() + " reindexed, lemmas added " + delta.getAdded() + ", removed "
+                + delta.getRemoved() + ", re-ranked " + delta.getRankChanged());
+        if (siteEntity.isLive()) {
+            eventPublisher.publishEvent(new PageReindexedEvent(siteEntity.getId(), siteEntity.getUrl(),
+                    siteEntity.getName(), pageEntity.getId(), lemmaRanks));
+        }
+    }
+
+    /**
+     * Keeps the page for replay while a newer generation of the site is being built. If that
+     * generation went live while the page was written to the old one, the page is indexed again now.
+     */
+    private void keepForReplayIfRebuilding(SiteEntity siteEntity, String pageUrl) {
+        SiteEntity latest = siteRepository.findSiteEntityByUrl(siteEntity.getUrl());
+        if (latest != null && !latest.isLive()) {
+            return;
+        }
+        boolean pending = pagesToReplay.get(siteEntity.getUrl()).remove(pageUrl);
+        if (pending && latest != null && latest.getId() != siteEntity.getId()) {
+            indexSinglePage(pageUrl);
+        }
+    }
+
+    /**
+     * A site whose first generation is still being built, or waits for its crawl to be resumed, has no
+     * live generation to write the page to, and a new one would outnumber the generation under
+     * construction. The page is indexed by the replay that follows the build instead.
+     */
+    private boolean deferUntilFirstBuildGoesLive(String homePage, String pageUrl) {
+        if (siteRepository.findLiveSiteByUrl(homePage) != null) {
+            return false;
+        }
+        SiteEntity latest = siteRepository.findSiteEntityByUrl(homePage);
+        if (latest == null || (latest.getStatus() != Status.INDEXING && checkpointStore.load(homePage)
+                .filter(checkpoint -> checkpoint.getSiteId() == latest.getId()).isEmpty())) {
+            return false;
+        }
+        Set<String> pages = pagesToReplay.computeIfAbsent(homePage, url -> ConcurrentHashMap.newKeySet());
+        pages.add(pageUrl);
+        if (siteRepository.findLiveSiteByUrl(homePage) != null) {
+            return !pages.remove(pageUrl);
+        }
+        log.info("Page " + pageUrl + " will be indexed once the first generation of " + homePage + " goes live");
+        return true;
+    }
+
+    private void replayReindexedPages(SiteEntity siteEntity) {
+        Set<String> pages = pagesToReplay.get(siteEntity.getUrl());
+        if (pages == null) {
+            return;
+        }
+        for (String pageUrl : List.copyOf(pages)) {
+            if (pages.remove(pageUrl)) {
+                try {
+                    indexSinglePage(pageUrl);
+                } catch (RuntimeException exception) {
+                    log.warn("Replaying page " + pageUrl + " FAILED due to " + exception);
+                }
+            }
         }
-        pageRepository.delete(deletePageEntity);
-        return deletePageEntity;
     }
 
     private SiteEntity findOrCreateNewSiteEntity(String url) {
         String siteUrlFromPageUrl = ReworkString.getStartPage(url);
-        SiteEntity siteEntity = siteRepository.findSiteEntityByUrl(siteUrlFromPageUrl);
+        SiteEntity siteEntity = siteRepository.findLiveSiteByUrl(siteUrlFromPageUrl);
         if (siteEntity == null) {
             siteEntity = createSiteToHandleSinglePage(siteUrlFromPageUrl);
         }
         return siteEntity;
     }
 
-    private void reduceLemmaFrequenciesByOnePage(String html, int siteId) {
-        Map<String, Integer> allUniquePageLemmas = getAllLemmasPage(html);
-        lemmaRepository.reduceByOneLemmaFrequencies(siteId, allUniquePageLemmas.keySet());
-        lemmaRepository.deleteLemmasWithNoFrequencies(siteId);
-    }
-
     private SiteEntity createSiteToHandleSinglePage(String siteHomePageToSave) {
         SiteEntity siteEntity = new SiteEntity();
         String currentSiteHomePage;
         for (Site site : sites.getSites()) {
             currentSiteHomePage = ReworkString.getStartPage(site.getUrl());
             if (siteHomePageToSave.equalsIgnoreCase(currentSiteHomePage)) {
-                siteEntity = createAndPrepareSiteForIndexing(site);
+                siteEntity = createAndPrepareSiteForIndexing(site, true);
                 break;
             }
         }
@@ -190,86 +298,277 @@ public class IndexingServiceImpl implements IndexingService {
     }
 
     private void indexSingleSite(Site site) {
+        SiteEntity siteEntity;
+        IndexingMode indexingMode;
+        CrawlCheckpoint checkpoint;
         try {
-            SiteParser pageParse = initCollectionsForSiteAndCreateMainPageSiteParser(site);
-            forkJoinPool.invoke(pageParse);
-            fillLemmasAndIndexTable(site);
-            markSiteAsIndexed(site);
-            log.info("Indexing completed for " + site.getName());
+            checkpoint = findCheckpointToResume(site);
+            SiteEntity indexedSite = checkpoint != null || incrementalIndexing
+                    ? findSiteForReindexing(site, checkpoint != null) : null;
+            if (indexedSite == null) {
+                checkpoint = null;
+                indexingMode = IndexingMode.FULL;
+                siteEntity = createAndPrepareSiteForIndexing(site, false);
+            } else {
+                indexingMode = checkpoint != null ? IndexingMode.RESUME : IndexingMode.INCREMENTAL;
+                siteEntity = indexedSite;
+            }
+            initCollectionsForSite(siteEntity, indexingMode);
         } catch (Exception exception) {
             log.warn("Indexing FAILED " + site.getName() + " due to " + exception);
-            fixSiteIndexingError(site, exception);
-            clearLemmasAndIndexTable(site);
+            markIndexingCompletionIfApplicable();
+            return;
+        }
+        crawlEngine.crawl(siteEntity, new SiteParser(this, siteEntity, indexingMode), checkpoint,
+                        crawlCheckpoint -> saveCheckpoint(siteEntity, crawlCheckpoint))
+                .whenCompleteAsync((ignored, throwable) -> completeSiteIndexing(site, siteEntity, indexingMode, throwable),
+                        crawlEngine.getWorkers());
+    }
+
+    private void completeSiteIndexing(Site site, SiteEntity siteEntity, IndexingMode indexingMode, Throwable throwable) {
+        try {
+            Set<Integer> releasedPages = new HashSet<>(changedPagesMap.getOrDefault(siteEntity.getId(), Set.of()));
+            if (throwable == null) {
+                if (indexingMode == IndexingMode.INCREMENTAL) {
+                    releasedPages.addAll(removeUnvisitedPages(siteEntity));
+                }
+                reindexDuplicatesOf(siteEntity, releasedPages);
+                fillLemmasAndIndexTable(siteEntity.getId());
+                if (indexingMode != IndexingMode.FULL) {
+                    lemmaRepository.deleteLemmasWithNoFrequencies(siteEntity.getId());
+                }
+                checkpointStore.delete(siteEntity.getUrl());
+                markSiteAsIndexed(siteEntity);
+                siteGenerations.activate(siteEntity);
+                eventPublisher.publishEvent(new SiteIndexedEvent(siteEntity.getId(), siteEntity.getUrl(),
+                        siteEntity.getName()));
+                log.info("Indexing completed for " + site.getName() + ", generation " + siteEntity.getGeneration()
+                        + " is live");
+                replayReindexedPages(siteEntity);
+            } else {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                        ? throwable.getCause() : throwable;
+                Exception exception = cause instanceof Exception ? (Exception) cause : new Exception(cause);
+                log.warn("Indexing FAILED " + site.getName() + " due to " + exception);
+                reindexDuplicatesOf(siteEntity, releasedPages);
+                if (exception instanceof CrawlStoppedException) {
+                    saveCheckpoint(siteEntity, ((CrawlStoppedException) exception).getCheckpoint());
+                    fixSiteIndexingError(siteEntity, exception);
+                } else {
+                    fillLemmasAndIndexTable(siteEntity.getId());
+                    checkpointStore.delete(siteEntity.getUrl());
+                    fixSiteIndexingError(siteEntity, exception);
+                    replayReindexedPages(siteEntity);
+                }
+            }
+        } catch (Exception exception) {
+            log.warn("Completing indexing FAILED " + site.getName() + " due to " + exception);
         } finally {
+            simHashIndexMap.remove(siteEntity.getId());
+            changedPagesMap.remove(siteEntity.getId());
             markIndexingCompletionIfApplicable();
         }
     }
 
+    private void saveCheckpoint(SiteEntity siteEntity, CrawlCheckpoint checkpoint) {
+        if (checkpoint == null) {
+            return;
+        }
+        flushSiteData(siteEntity.getId(), true);
+        checkpointStore.save(checkpoint);
+    }
+
+    private CrawlCheckpoint findCheckpointToResume(Site site) {
+        String homePage = ReworkString.getStartPage(site.getUrl());
+        CrawlCheckpoint checkpoint = checkpointStore.load(homePage).orElse(null);
+        if (checkpoint == null) {
+            return null;
+        }
+        SiteEntity siteEntity = siteRepository.findSiteEntityByUrl(homePage);
+        if (siteEntity == null || siteEntity.getId() != checkpoint.getSiteId()) {
+            log.info("Checkpoint for " + homePage + " is outdated and will be discarded");
+            checkpointStore.delete(homePage);
+            return null;
+        }
+        return checkpoint;
+    }
+
     public void savePageAndSiteStatusTime(PageEntity pageEntity, String pageHtml, SiteEntity siteEntity) {
-        if (!forkJoinPool.isTerminating()
-                && !forkJoinPool.isTerminated()
-                && !siteStatusMap.get(siteEntity.getUrl()).equals(Status.FAILED)) {
+        if (siteStatusMap.get(siteEntity.getUrl()).equals(Status.INDEXING)) {
             savePageAndSite(pageEntity, pageHtml, siteEntity);
         }
     }
 
     public void savePageAndSite(PageEntity pageEntity, String pageHtml, SiteEntity siteEntity) {
         pageEntity.setContent(pageHtml);
-        pageRepository.save(pageEntity);
-        siteEntity.setLocalDateTime(LocalDateTime.now());
-        siteRepository.save(siteEntity);
+        if (pageEntity.getId() == 0) {
+            pageInsertBatcher.insert(pageEntity);
+        } else {
+            pageRepository.save(pageEntity);
+        }
+        siteHeartbeat.beat(siteEntity);
     }
 
-    private Map<String, Integer> getAllLemmasPage(String html) {
-        Document document = ConnectionUtil.parse(html);
-        String title = document.title();
-        String body = document.body().text();
+    public PageEntity findIndexedPage(String path, SiteEntity siteEntity) {
+        return pageRepository.findPageEntityByPathAndSite(path, siteEntity);
+    }
 
-        Map<String, Integer> titleLemmas = LemmaExecute.getLemmaMap(title);
-        Map<String, Integer> bodyLemmas = LemmaExecute.getLemmaMap(body);
+    public void markPageVisited(PageEntity pageEntity, SiteEntity siteEntity) {
+        Set<Integer> visitedPages = visitedPagesMap.get(siteEntity.getId());
+        if (visitedPages != null) {
+            visitedPages.add(pageEntity.getId());
+        }
+    }
 
-        return Stream.concat(titleLemmas.entrySet().stream(), bodyLemmas.entrySet().stream())
-                .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.summingInt(Map.Entry::getValue)));
+    /**
+     * Returns the id of an already indexed page of the site with nearly the same text, or 0.
+     */
+    public int findNearDuplicate(PageEntity pageEntity, SiteEntity siteEntity) {
+        SimHashIndex simHashIndex = simHashIndexMap.get(siteEntity.getId());
+        if (pageEntity.getSimhash() == null || simHashIndex == null) {
+            return 0;
+        }
+        return simHashIndex.findNearDuplicate(pageEntity.getSimhash(), pageEntity.getId());
     }
 
-    public void extractLemmas(String html, PageEntity pageEntity, SiteEntity siteEntity) {
-        Map<String, Integer> lemmaEntityHashMap = getAllLemmasPage(html);
-        for (String lemmas : lemmaEntityHashMap.keySet()) {
-            Map<String, LemmaEntity> allLemmasBySiteId = lemmasMap.get(siteEntity.getId());
-            LemmaEntity lemmaEntity = allLemmasBySiteId.get(lemmas);
-            if (lemmaEntity == null) {
-                lemmaEntity = new LemmaEntity();
-                lemmaEntity.setLemma(lemmas);
-                lemmaEntity.setFrequency(1);
-                lemmaEntity.setSite(siteEntity);
-                lemmasMap.get(siteEntity.getId()).put(lemmas, lemmaEntity);
-            } else {
-                int count = allLemmasBySiteId.get(lemmas).getFrequency();
-                lemmasMap.get(siteEntity.getId()).get(lemmas).setFrequency(count + 1);
+    public void registerSimHash(PageEntity pageEntity, SiteEntity siteEntity) {
+        SimHashIndex simHashIndex = simHashIndexMap.get(siteEntity.getId());
+        if (pageEntity.getSimhash() != null && simHashIndex != null) {
+            simHashIndex.add(pageEntity.getSimhash(), pageEntity.getId());
+        }
+    }
+
+    public void removePageFromIndex(PageEntity pageEntity, SiteEntity siteEntity) {
+        SimHashIndex simHashIndex = simHashIndexMap.get(siteEntity.getId());
+        if (pageEntity.getSimhash() != null && simHashIndex != null) {
+            simHashIndex.remove(pageEntity.getSimhash(), pageEntity.getId());
+        }
+        changedPagesMap.get(siteEntity.getId()).add(pageEntity.getId());
+        Lock readLock = siteLocks.get(siteEntity.getId()).readLock();
+        readLock.lock();
+        try {
+            lemmaIndexBuffers.get(siteEntity.getId()).removePage(indexRepository.findLemmasByPageId(pageEntity.getId()));
+            indexRepository.deleteAllByPageId(pageEntity.getId());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private List<Integer> removeUnvisitedPages(SiteEntity siteEntity) {
+        Set<Integer> visitedPages = visitedPagesMap.get(siteEntity.getId());
+        List<Integer> unvisitedPages = pageRepository.findIdsBySiteId(siteEntity.getId()).stream()
+                .filter(pageId -> !visitedPages.contains(pageId))
+                .collect(Collectors.toList());
+        if (unvisitedPages.isEmpty()) {
+            return unvisitedPages;
+        }
+        SimHashIndex simHashIndex = simHashIndexMap.get(siteEntity.getId());
+        if (simHashIndex != null) {
+            simHashIndex.removeAll(new HashSet<>(unvisitedPages));
+        }
+        Lock readLock = siteLocks.get(siteEntity.getId()).readLock();
+        readLock.lock();
+        try {
+            lemmaIndexBuffers.get(siteEntity.getId()).removePage(bulkIndexWriter.deletePages(siteEntity.getId(), unvisitedPages));
+        } finally {
+            readLock.unlock();
+        }
+        log.info(unvisitedPages.size() + " pages no longer linked removed from index of " + siteEntity.getUrl());
+        return unvisitedPages;
+    }
+
+    /**
+     * Near-duplicates of pages that changed or were removed either point at another page that is
+     * still alike or are indexed on their own.
+     */
+    private void reindexDuplicatesOf(SiteEntity siteEntity, Collection<Integer> originalPageIds) {
+        List<Integer> pageIds = List.copyOf(originalPageIds);
+        int reindexed = 0;
+        for (int from = 0; from < pageIds.size(); from += DUPLICATES_CHUNK_SIZE) {
+            List<Integer> chunk = pageIds.subList(from, Math.min(from + DUPLICATES_CHUNK_SIZE, pageIds.size()));
+            for (PageEntity duplicate : pageRepository.findDuplicatesOf(siteEntity.getId(), chunk)) {
+                duplicate.setDuplicateOf(null);
+                int originalPageId = findNearDuplicate(duplicate, siteEntity);
+                if (originalPageId != 0) {
+                    duplicate.setDuplicateOf(originalPageId);
+                    pageRepository.save(duplicate);
+                    continue;
+                }
+                pageRepository.save(duplicate);
+                registerSimHash(duplicate, siteEntity);
+                extractLemmas(duplicate, siteEntity);
+                reindexed++;
             }
+        }
+        if (reindexed > 0) {
+            log.info(reindexed + " former near-duplicates indexed on their own for " + siteEntity.getUrl());
+        }
+    }
+
+    /**
+     * Pages stored before their text was kept alongside the html are parsed one last time.
+     */
+    private Map<String, Integer> getAllLemmasPage(PageEntity pageEntity) {
+        PageText pageText = pageEntity.getText() != null
+                ? new PageText(pageEntity.getTitle() == null ? "" : pageEntity.getTitle(), pageEntity.getText())
+                : pageEntity.getContent() == null || pageEntity.getContent().isEmpty()
+                ? PageText.EMPTY : PageText.of(ConnectionUtil.parse(pageEntity.getContent()));
 
-            float lemmaRank = (float) lemmaEntityHashMap.get(lemmas);
-            IndexEntity indexEntity = new IndexEntity(pageEntity, lemmaEntity, lemmaRank);
-            indexMap.get(siteEntity.getId()).add(indexEntity);
+        Map<String, Integer> titleLemmas = LemmaExecute.getLemmaMap(pageText.getTitle());
+        Map<String, Integer> bodyLemmas = LemmaExecute.getLemmaMap(pageText.getText());
+
+        return Stream.concat(titleLemmas.entrySet().stream(), bodyLemmas.entrySet().stream())
+                .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.summingInt(Map.Entry::getValue)));
+    }
+
+    /**
+     * Pages of a running crawl go to the site's buffer, flushed once it is big or old enough.
+     */
+    public void extractLemmas(PageEntity pageEntity, SiteEntity siteEntity) {
+        Map<String, Integer> lemmaEntityHashMap = getAllLemmasPage(pageEntity);
+        LemmaIndexBuffer buffer = lemmaIndexBuffers.get(siteEntity.getId());
+        Lock readLock = siteLocks.get(siteEntity.getId()).readLock();
+        readLock.lock();
+        try {
+            buffer.addPage(pageEntity.getId(), lemmaEntityHashMap);
+        } finally {
+            readLock.unlock();
+        }
+        if (buffer.isFlushDue(propertiesProject.getFlushMaxRows(), propertiesProject.getFlushInterval())) {
+            flushSiteData(siteEntity.getId(), false);
         }
     }
 
-    private void fillLemmasAndIndexTable(Site site) {
-        String url = ReworkString.getStartPage(site.getUrl());
-        int siteEntityId = siteRepository.findSiteEntityByUrl(url).getId();
-        Map<String, LemmaEntity> lemmaEntityMap = lemmasMap.get(siteEntityId);
-        Set<IndexEntity> indexEntitySet = indexMap.get(siteEntityId);
-        lemmaRepository.saveAll(lemmaEntityMap.values());
-        lemmasMap.get(siteEntityId).clear();
-        indexRepository.saveAll(indexEntitySet);
-        indexMap.get(siteEntityId).clear();
+    private void fillLemmasAndIndexTable(int siteEntityId) {
+        flushSiteData(siteEntityId, true);
+    }
+
+    private void flushSiteData(int siteEntityId, boolean force) {
+        ReadWriteLock siteLock = siteLocks.get(siteEntityId);
+        LemmaIndexBuffer buffer = lemmaIndexBuffers.get(siteEntityId);
+        if (siteLock == null || buffer == null) {
+            return;
+        }
+        Lock writeLock = siteLock.writeLock();
+        writeLock.lock();
+        try {
+            if (!force && !buffer.isFlushDue(propertiesProject.getFlushMaxRows(), propertiesProject.getFlushInterval())) {
+                return;
+            }
+            LemmaIndexBuffer.Drained drained = buffer.drain();
+            if (!drained.isEmpty()) {
+                bulkIndexWriter.write(siteEntityId, drained);
+            }
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     private void saveDataFromMapsToDatabase() {
         try {
             lock.lock();
-            for (Site site : sites.getSites()) {
-                fillLemmasAndIndexTable(site);
+            for (Integer siteEntityId : lemmaIndexBuffers.keySet()) {
+                fillLemmasAndIndexTable(siteEntityId);
             }
         } catch (Exception exception) {
             log.warn("Data saving FAILED due to " + exception);
@@ -278,45 +577,65 @@ public class IndexingServiceImpl implements IndexingService {
         }
     }
 
-    private void clearLemmasAndIndexTable(Site site) {
-        String url = ReworkString.getStartPage(site.getUrl());
-        int siteEntityId = siteRepository.findSiteEntityByUrl(url).getId();
-        lemmasMap.get(siteEntityId).clear();
-        indexMap.get(siteEntityId).clear();
+    private void initCollectionsForSite(SiteEntity siteEntity, IndexingMode indexingMode) {
+        siteStatusMap.put(siteEntity.getUrl(), Status.INDEXING);
+        siteLocks.put(siteEntity.getId(), new ReentrantReadWriteLock());
+        if (indexingMode == IndexingMode.INCREMENTAL) {
+            visitedPagesMap.put(siteEntity.getId(), ConcurrentHashMap.newKeySet());
+        }
+        lemmaIndexBuffers.put(siteEntity.getId(), new LemmaIndexBuffer());
+        changedPagesMap.put(siteEntity.getId(), ConcurrentHashMap.newKeySet());
+        if (propertiesProject.isNearDuplicatesEnabled()) {
+            SimHashIndex simHashIndex = new SimHashIndex(propertiesProject.getNearDuplicatesMaxDistance());
+            if (indexingMode != IndexingMode.FULL) {
+                for (Object[] row : pageRepository.findSimHashesBySiteId(siteEntity.getId())) {
+                    simHashIndex.add(((Number) row[1]).longValue(), ((Number) row[0]).intValue());
+                }
+            }
+            simHashIndexMap.put(siteEntity.getId(), simHashIndex);
+        }
     }
 
-    private SiteParser initCollectionsForSiteAndCreateMainPageSiteParser(Site siteToHandle) {
-        SiteEntity siteEntity = createAndPrepareSiteForIndexing(siteToHandle);
-        siteStatusMap.put(siteEntity.getUrl(), Status.INDEXING);
-        Map<String, LemmaEntity> lemmaEntityMap = new HashMap<>();
-        lemmasMap.put(siteEntity.getId(), lemmaEntityMap);
-        Set<IndexEntity> indexEntitySet = new HashSet<>();
-        indexMap.put(siteEntity.getId(), indexEntitySet);
-        String siteHomePage = siteEntity.getUrl();
-        webPages.add(siteHomePage);
-        return new SiteParser(this, siteEntity, siteHomePage);
+    /**
+     * A resumed crawl continues the generation it was building, an incremental one updates the live generation.
+     */
+    private SiteEntity findSiteForReindexing(Site site, boolean resume) {
+        String homePage = ReworkString.getStartPage(site.getUrl());
+        SiteEntity siteEntity = resume ? siteRepository.findSiteEntityByUrl(homePage) : siteRepository.findLiveSiteByUrl(homePage);
+        if (siteEntity == null) {
+            return null;
+        }
+        siteEntity.setStatus(Status.INDEXING);
+        siteEntity.setLastError(null);
+        siteEntity.setLocalDateTime(LocalDateTime.now());
+        return siteRepository.save(siteEntity);
     }
 
-    private SiteEntity createAndPrepareSiteForIndexing(Site site) {
+    /**
+     * Starts a new generation of the site next to the live one, which search keeps using until
+     * the new one is complete. Unfinished generations of earlier runs are retired.
+     * A site first created to index a single page is live right away.
+     */
+    private SiteEntity createAndPrepareSiteForIndexing(Site site, boolean live) {
         String homePage = ReworkString.getStartPage(site.getUrl());
-        SiteEntity oldSiteEntity = siteRepository.findSiteEntityByUrl(homePage);
-        if (oldSiteEntity != null) {
-            oldSiteEntity.setStatus(Status.INDEXING);
-            oldSiteEntity.setLocalDateTime(LocalDateTime.now());
-            siteRepository.save(oldSiteEntity);
-            siteRepository.deleteSiteEntityByUrl(homePage);
+        if (!live) {
+            SiteEntity liveSiteEntity = siteRepository.findLiveSiteByUrl(homePage);
+            siteGenerations.retireAllExcept(homePage, liveSiteEntity == null ? 0 : liveSiteEntity.getId());
         }
         SiteEntity siteEntity = new SiteEntity();
         siteEntity.setStatus(Status.INDEXING);
         siteEntity.setLocalDateTime(LocalDateTime.now());
         siteEntity.setUrl(homePage);
         siteEntity.setName(site.getName());
-        return siteRepository.save(siteEntity);
+        siteEntity.setGeneration(siteGenerations.nextGeneration(homePage));
+        siteEntity.setLive(live);
+        siteEntity = siteRepository.save(siteEntity);
+        siteGenerations.createStorage(siteEntity);
+        return siteEntity;
     }
 
-    private void markSiteAsIndexed(Site site) {
-        String homePage = ReworkString.getStartPage(site.getUrl());
-        SiteEntity siteEntity = siteRepository.findSiteEntityByUrl(homePage);
+    private void markSiteAsIndexed(SiteEntity siteEntity) {
+        siteHeartbeat.forget(siteEntity);
         siteEntity.setLocalDateTime(LocalDateTime.now());
         siteEntity.setStatus(Status.INDEXED);
         siteRepository.save(siteEntity);
@@ -332,10 +651,9 @@ public class IndexingServiceImpl implements IndexingService {
         isIndexing = false;
     }
 
-    private void fixSiteIndexingError(Site site, Exception e) {
+    private void fixSiteIndexingError(SiteEntity siteEntity, Exception e) {
         String error = getErrorMessage(e);
-        String homePage = ReworkString.getStartPage(site.getUrl());
-        SiteEntity siteEntity = siteRepository.findSiteEntityByUrl(homePage);
+        siteHeartbeat.forget(siteEntity);
         siteEntity.setLocalDateTime(LocalDateTime.now());
         siteEntity.setStatus(Status.FAILED);
         siteEntity.setLastError(error);
@@ -370,24 +688,13 @@ public class IndexingServiceImpl implements IndexingService {
 
     private void fixSiteStatusAfterSinglePageIndexed(SiteEntity site) {
         site.setStatus(Status.INDEXED);
+        site.setLocalDateTime(LocalDateTime.now());
         siteRepository.save(site);
     }
 
-    @Transactional
-    private void deleteAllDataFromDatabase() {
-        lemmaRepository.deleteAll();
-        pageRepository.deleteAll();
-        indexRepository.deleteAll();
-        siteRepository.deleteAll();
-    }
-
     private void shutdown() {
-        forkJoinPool.shutdownNow();
-        try {
-            forkJoinPool.awaitTermination(10, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        siteStatusMap.replaceAll((url, status) -> Status.FAILED);
+        crawlEngine.stop(10, TimeUnit.SECONDS);
     }
 }
 
@@ -0,0 +1,121 @@
+package searchengine.services.service_impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import searchengine.dto.metrics.BulkWriteMetricsItem;
+import searchengine.dto.metrics.CacheMetricsItem;
+import searchengine.dto.metrics.CompressionMetricsItem;
+import searchengine.dto.metrics.CrawlMetricsItem;
+import searchengine.dto.metrics.MetricsResponse;
+import searchengine.dto.metrics.PipelineStageMetricsItem;
+import searchengine.services.crawler.AdaptiveConcurrency;
+import searchengine.services.crawler.CrawlEngine;
+import searchengine.services.crawler.SiteCrawler;
+import searchengine.services.indexing.BulkIndexWriter;
+import searchengine.services.indexing.BulkWriteStats;
+import searchengine.services.indexing.IndexingPipeline;
+import searchengine.services.indexing.PipelineStage;
+import searchengine.services.interfaces.MetricsService;
+import searchengine.services.search.SearchResultCache;
+import searchengine.util.ConcurrentLruCache;
+import searchengine.util.LemmaExecute;
+import searchengine.util.PageContentCodec;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class MetricsServiceImpl implements MetricsService {
+
+    private final CrawlEngine crawlEngine;
+    private final IndexingPipeline indexingPipeline;
+    private final BulkIndexWriter bulkIndexWriter;
+    private final SearchResultCache searchResultCache;
+
+    @Override
+    public MetricsResponse getMetrics() {
+        MetricsResponse response = new MetricsResponse();
+        response.setCrawl(getCrawlMetrics());
+        response.setCaches(List.of(getCacheMetrics("morphology", LemmaExecute.getWordFormCache()),
+                getCacheMetrics("search-results", searchResultCache.getCache())));
+        response.setPipeline(getPipelineMetrics());
+        response.setBulkWrites(getBulkWriteMetrics());
+        response.setContentCompression(getCompressionMetrics());
+        response.setResult(true);
+        return response;
+    }
+
+    private List<CrawlMetricsItem> getCrawlMetrics() {
+        List<CrawlMetricsItem> items = new ArrayList<>();
+        for (SiteCrawler crawler : crawlEngine.getCrawlers()) {
+            AdaptiveConcurrency concurrency = crawler.getConcurrency();
+            String url = crawler.getSiteEntity().getUrl();
+            CrawlMetricsItem item = new CrawlMetricsItem();
+            item.setUrl(url);
+            item.setConcurrencyLimit(concurrency.getLimit());
+            item.setInFlight(crawler.getInFlight());
+            item.setQueued(crawler.getQueued());
+            item.setPagesProcessed(crawler.getPagesProcessed());
+            item.setAverageLatency(concurrency.getAverageLatency());
+            item.setOverloadRate(concurrency.getOverloadRate());
+            item.setRequestInterval(concurrency.getInterval());
+            item.setCrawlDelay(crawlEngine.getCrawlDelay(URI.create(url).getHost()));
+            items.add(item);
+        }
+        return items;
+    }
+
+    private List<PipelineStageMetricsItem> getPipelineMetrics() {
+        List<PipelineStageMetricsItem> items = new ArrayList<>();
+        for (PipelineStage stage : indexingPipeline.getStages()) {
+            PipelineStageMetricsItem item = new PipelineStageMetricsItem();
+            item.setName(stage.getName());
+            item.setThreads(stage.getThreads());
+            item.setActive(stage.getActive());
+            item.setQueued(stage.getQueued());
+            item.setProcessed(stage.getProcessed());
+            item.setFailed(stage.getFailed());
+            item.setThroughput(stage.getThroughput());
+            item.setUtilization(stage.getUtilization());
+            items.add(item);
+        }
+        return items;
+    }
+
+    private List<BulkWriteMetricsItem> getBulkWriteMetrics() {
+        List<BulkWriteMetricsItem> items = new ArrayList<>();
+        for (BulkWriteStats stats : bulkIndexWriter.getStats()) {
+            BulkWriteMetricsItem item = new BulkWriteMetricsItem();
+            item.setTable(stats.getTable());
+            item.setRows(stats.getRows());
+            item.setBatches(stats.getBatches());
+            item.setRowsPerSecond(stats.getRowsPerSecond());
+            items.add(item);
+        }
+        return items;
+    }
+
+    private CompressionMetricsItem getCompressionMetrics() {
+        CompressionMetricsItem item = new CompressionMetricsItem();
+        item.setPages(PageContentCodec.getCompressedPages());
+        item.setRawBytes(PageContentCodec.getRawBytes());
+        item.setCompressedBytes(PageContentCodec.getCompressedBytes());
+        item.setRatio(PageContentCodec.getCompressionRatio());
+        return item;
+    }
+
+    private CacheMetricsItem getCacheMetrics(String name, ConcurrentLruCache<?, ?> cache) {
+        CacheMetricsItem item = new CacheMetricsItem();
+        item.setName(name);
+        item.setSize(cache.size());
+        item.setCapacity(cache.getCapacity());
+        item.setHits(cache.getHits());
+        item.setMisses(cache.getMisses());
+        item.setEvictions(cache.getEvictions());
+        item.setExpirations(cache.getExpirations());
+        item.setHitRate(cache.getHitRate());
+        return item;
+    }
+}
@@ -2,20 +2,22 @@ package searchengine.services.service_impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import searchengine.dto.api_search.ApiSearchResponse;
-import searchengine.dto.api_search.ApiSearchResult;
-import searchengine.model.IndexEntity;
 import searchengine.model.LemmaEntity;
-import searchengine.model.PageEntity;
 import searchengine.model.SiteEntity;
 import searchengine.repository.IndexRepository;
 import searchengine.repository.LemmaRepository;
+import searchengine.repository.PageRepository;
 import searchengine.repository.SiteRepository;
 import searchengine.services.interfaces.SearchService;
-import searchengine.util.ConnectionUtil;
-import searchengine.util.KMPSnippet;
+import searchengine.services.search.Bm25;
+import searchengine.services.search.SearchResultAssembler;
+import searchengine.services.search.SearchSite;
+import searchengine.services.search.TopHits;
 import searchengine.util.LemmaExecute;
 
 import java.util.*;
@@ -25,208 +27,115 @@ import static java.lang.System.currentTimeMillis;
 
 @Slf4j
 @Service
+@Qualifier("searchEngine")
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "search.engine", havingValue = "sql", matchIfMissing = true)
 public class SearchServiceImpl implements SearchService {
 
+    private static final int CANDIDATE_CHUNK_SIZE = 1000;
+
     private final SiteRepository siteRepository;
     private final LemmaRepository lemmaRepository;
     private final IndexRepository indexRepository;
-    private final KMPSnippet kmpSnippet;
-    private List<String> cachedLemmasToString;
-    private List<LemmaEntity> cashedLemmasToLemmaEntityList = new ArrayList<>();
-    private List<SiteEntity> cashedSiteEntityList = new ArrayList<>();
+    private final PageRepository pageRepository;
+    private final SearchResultAssembler searchResultAssembler;
 
     @Override
     public ResponseEntity<ApiSearchResponse> search(String query, String url, int offset, int limit) {
-        log.info("Received search request with query: {}, url: {}, offset: {}, limit: {}", query, url, offset, limit);
-        getSiteEntityList(url);
+        return search(checkQuery(query) ? Set.of() : LemmaExecute.getLemmaList(query), url, offset, limit);
+    }
+
+    @Override
+    public ResponseEntity<ApiSearchResponse> search(Set<String> lemmas, String url, int offset, int limit) {
+        log.info("Received search request with lemmas: {}, url: {}, offset: {}, limit: {}", lemmas, url, offset, limit);
+        long start = currentTimeMillis();
         ApiSearchResponse apiSearchResponse = new ApiSearchResponse();
         apiSearchResponse.setResult(false);
-        if(checkQuery(query) || checkLemmaInDatabase(query)){
+        List<SiteEntity> siteEntityList = getSiteEntityList(url);
+        if (lemmas.isEmpty()) {
             apiSearchResponse.setMessageError("Query is incorrect or empty");
-        } else if (checkStatusSites(url)){
+        } else if (siteEntityList.isEmpty()) {
             apiSearchResponse.setMessageError("Page is located outside the sites specified in the configuration file");
         } else {
-            buildStringListAndLemmaEntityList(query);
-                apiSearchResponse = getApiSearchResponse();
+            List<Integer> siteIdList = siteEntityList.stream().map(SiteEntity::getId).collect(Collectors.toList());
+            List<LemmaEntity> lemmaEntityList = lemmaRepository.findAllByLemmaNameAndSiteName(new ArrayList<>(lemmas), siteIdList);
+            if (lemmaEntityList.isEmpty()) {
+                apiSearchResponse.setMessageError("Query is incorrect or empty");
+            } else {
+                apiSearchResponse = getApiSearchResponse(siteEntityList, lemmaEntityList, lemmas, offset, limit);
+            }
         }
+        log.info("TIME search: " + (currentTimeMillis() - start));
         return ResponseEntity.ok(apiSearchResponse);
     }
 
-    private ApiSearchResponse getApiSearchResponse() {
+    private ApiSearchResponse getApiSearchResponse(List<SiteEntity> siteEntityList, List<LemmaEntity> lemmaEntityList,
+                                                   Set<String> lemmas, int offset, int limit) {
+        Map<Integer, List<LemmaEntity>> lemmasBySite = lemmaEntityList.stream()
+                .collect(Collectors.groupingBy(lemmaEntity -> lemmaEntity.getSite().getId()));
+        TopHits topHits = TopHits.forWindow(offset, limit);
+        for (SiteEntity siteEntity : siteEntityList) {
+            List<LemmaEntity> siteLemmas = lemmasBySite.getOrDefault(siteEntity.getId(), List.of());
+            if (siteLemmas.size() == lemmas.size()) {
+                collectSiteHits(siteEntity, new ArrayList<>(siteLemmas), topHits);
+            }
+        }
+        SearchResultAssembler.Window window = searchResultAssembler.assemble(topHits.sortedDescending(), lemmas,
+                offset, limit);
         ApiSearchResponse apiSearchResponse = new ApiSearchResponse();
         apiSearchResponse.setResult(true);
-        List<ApiSearchResult> apiSearchResultList = getApiSearchResult();
-        apiSearchResponse.setCount(apiSearchResultList.size());
-        apiSearchResponse.setData(apiSearchResultList);
+        apiSearchResponse.setCount((int) (topHits.getTotal() - window.getDropped()));
+        apiSearchResponse.setData(window.getResults());
         apiSearchResponse.setMessageError(null);
         return apiSearchResponse;
     }
 
-    private List<ApiSearchResult> getApiSearchResult(){
-        List<ApiSearchResult> apiSearchResultList = new ArrayList<>();
-        Map<PageEntity, Float> result = sortPagesByRelationsValue();
-        long start2 = currentTimeMillis();
-        for (Map.Entry<PageEntity, Float> entry : result.entrySet()) {
-            PageEntity pageEntity = entry.getKey();
-            String snippet = execSnippet(pageEntity);
-            if(snippet == null || snippet.isEmpty()){
-                continue;
-            }
-            ApiSearchResult apiSearchResult = new ApiSearchResult();
-            apiSearchResult.setSiteName(entry.getKey().getSite().getName());
-            apiSearchResult.setSite(entry.getKey().getSite().getUrl());
-            apiSearchResult.setUri(entry.getKey().getPath());
-            apiSearchResult.setSnippet(snippet);
-            apiSearchResult.setTitle(ConnectionUtil.getTextFromContentToSnippet(pageEntity.getContent()));
-            apiSearchResult.setRelevance(entry.getValue());
-            apiSearchResultList.add(apiSearchResult);
-        }
-        log.info("TIME getApiSearchResult: " + (currentTimeMillis() - start2));
-        return apiSearchResultList;
-    }
-
-    private String execSnippet(PageEntity pageEntity){
-        LemmaEntity lemmaEntity = lemmaRepository.findByMinFrequency(cachedLemmasToString);
-        String pathToSave = kmpSnippet.idleSnippet(pageEntity.getContent(), lemmaEntity.getLemma());
-        for (LemmaEntity word : cashedLemmasToLemmaEntityList) {
-            pathToSave = kmpSnippet.snippetFinishResult(pathToSave, word.getLemma());
-        }
-        if (pathToSave == null || pathToSave.isEmpty()){
-            return null;
-        }
-        return pathToSave;
-    }
-
-    private Map<PageEntity, Float> sortPagesByRelationsValue(){
-        Map<PageEntity, Float> map = getPagesByRelationsRanking();
-        return map.entrySet().stream()
-                .sorted(Map.Entry.<PageEntity, Float>comparingByValue().reversed()).limit(200)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (oldValue, newValue) -> oldValue, LinkedHashMap::new));
-    }
-
-    private Map<PageEntity, Float> getPagesByRelationsRanking(){
-        Map<PageEntity, Float> map = new HashMap<>();
-        Map<IndexEntity, Float> relativeResultRanking = getRelativeResultRanking();
-        for (Map.Entry<IndexEntity, Float> entry : relativeResultRanking.entrySet()) {
-            map.put(entry.getKey().getPage(), entry.getValue());
-        }
-        return map;
-    }
-
-    private Map<IndexEntity, Float> getRelativeResultRanking(){
-        Map<IndexEntity, Float> map = getCalculateAbsoluteRanking();
-        float max = getMaxValueAbsoluteRanking(map);
-        for (Map.Entry<IndexEntity, Float> entry : map.entrySet()) {
-            entry.setValue(entry.getValue() / max);
-        }
-        return map;
-    }
-
-    private float getMaxValueAbsoluteRanking(Map<IndexEntity, Float> map){
-        float max = 0;
-        for (Map.Entry<IndexEntity, Float> entry : map.entrySet()) {
-            if(entry.getValue() > max){
-                max = entry.getValue();
-            }
-        }
-        return max;
-    }
-
-    private Map<IndexEntity, Float> getCalculateAbsoluteRanking(){
-        Map<IndexEntity, Float> map = new HashMap<>();
-        Map<LemmaEntity, List<IndexEntity>> indexesForLemmaByPageId = getAllOfIndexesForLemmaByPageId();
-        for (Map.Entry<LemmaEntity, List<IndexEntity>> entry : indexesForLemmaByPageId.entrySet()) {
-            for (IndexEntity indexEntity : entry.getValue()){
-                if(map.containsKey(indexEntity)){
-                    map.put(indexEntity, map.get(indexEntity.getRank_lemmas()) + indexEntity.getRank_lemmas());
-                }
-                map.put(indexEntity, indexEntity.getRank_lemmas());
-            }
+    /**
+     * Scores the pages of one site holding every query lemma with BM25. Only the postings of the
+     * rarest lemma are read in full; every other lemma is looked up on the pages still left, a chunk
+     * of page ids per query, and the walk stops as soon as no page is left. Page lengths are not
+     * stored, so every page is weighted as one of average length.
+     */
+    private void collectSiteHits(SiteEntity siteEntity, List<LemmaEntity> siteLemmas, TopHits topHits) {
+        siteLemmas.sort(Comparator.comparingInt(LemmaEntity::getFrequency));
+        int pageCount = pageRepository.countPageEntitiesBySite(siteEntity);
+        LemmaEntity rarest = siteLemmas.get(0);
+        float idf = Bm25.idf(pageCount, rarest.getFrequency());
+        Map<Integer, Float> candidates = new LinkedHashMap<>();
+        for (Object[] posting : indexRepository.findPostingsByLemmaId(siteEntity.getId(), rarest.getId())) {
+            candidates.put(((Number) posting[0]).intValue(), idf * Bm25.termWeight(((Number) posting[1]).floatValue()));
         }
-        return map;
-    }
-
-    private Map<LemmaEntity, List<IndexEntity>> getAllOfIndexesForLemmaByPageId(){
-        Map<LemmaEntity, List<IndexEntity>> map = new HashMap<>();
-        long start = currentTimeMillis();
-        List<Integer> pageIdList = getPageIdListFromIndexRepo();
-        log.info("TIME getPageIdListFromIndexRepo: " + (currentTimeMillis() - start));
-        List<LemmaEntity> lemmaEntityList = actualizeLemmaEntityList();
-        long start2 = currentTimeMillis();
-        for (LemmaEntity lemmaEntity : lemmaEntityList){
-            map.put(lemmaEntity, indexRepository.findPagesIdByLemmaIdInIsPageList(lemmaEntity.getId(), pageIdList));
+        for (int i = 1; i < siteLemmas.size() && !candidates.isEmpty(); i++) {
+            candidates = probeCandidates(siteEntity.getId(), siteLemmas.get(i), pageCount, candidates);
         }
-        log.info("TIME getAllOfIndexesForLemmaByPageId: " + (currentTimeMillis() - start2));
-        return map;
-    }
-
-    private List<Integer> getPageIdListFromIndexRepo(){
-        LemmaEntity lemmaEntity = getRelativeFrequency();
-        return indexRepository.findPagesIdByLemmaIdIn(lemmaEntity.getLemma());
-    }
-
-    private LemmaEntity getRelativeFrequency(){
-        LemmaEntity lemmaEntity = lemmaRepository.findByMinFrequency(cachedLemmasToString);
-        return lemmaEntity;
-    }
-
-    private List<LemmaEntity> actualizeLemmaEntityList(){
-        List<Integer> siteIdList = cashedSiteEntityList.stream().map(SiteEntity::getId).collect(Collectors.toList());
-        return lemmaRepository.findAllByLemmaNameAndSiteName(cachedLemmasToString, siteIdList);
-    }
-
-    private void getLemmasEntityToString(){
-        cachedLemmasToString = cashedLemmasToLemmaEntityList.stream().map(LemmaEntity::getLemma).collect(Collectors.toList());
-    }
-
-    private void getLemmaEntityList(String query){
-        Set<String> lemmaList = LemmaExecute.getLemmaList(query);
-        List<LemmaEntity> lemmaEntityList = lemmaRepository.findAllByLemmaName(lemmaList);
-        cashedLemmasToLemmaEntityList.addAll(lemmaEntityList);
-    }
-
-    private void getSiteEntityList(String url){
-        if (url == null || url.isEmpty()){
-            cashedSiteEntityList = siteRepository.findAll();
-        } else {
-            SiteEntity siteEntity = siteRepository.findSiteEntityByUrl(url);
-            if (siteEntity != null){
-                cashedSiteEntityList.add(siteEntity);
+        SearchSite searchSite = new SearchSite(siteEntity.getUrl(), siteEntity.getName());
+        candidates.forEach((pageId, score) -> topHits.offer(searchSite, pageId, score));
+    }
+
+    private Map<Integer, Float> probeCandidates(int siteId, LemmaEntity lemmaEntity, int pageCount,
+                                                Map<Integer, Float> candidates) {
+        float idf = Bm25.idf(pageCount, lemmaEntity.getFrequency());
+        List<Integer> pageIds = new ArrayList<>(candidates.keySet());
+        Map<Integer, Float> matches = new LinkedHashMap<>();
+        for (int from = 0; from < pageIds.size(); from += CANDIDATE_CHUNK_SIZE) {
+            List<Integer> chunk = pageIds.subList(from, Math.min(from + CANDIDATE_CHUNK_SIZE, pageIds.size()));
+            for (Object[] posting : indexRepository.findPostingsByLemmaIdAndPageIds(siteId, lemmaEntity.getId(), chunk)) {
+                int pageId = ((Number) posting[0]).intValue();
+                matches.put(pageId, candidates.get(pageId) + idf * Bm25.termWeight(((Number) posting[1]).floatValue()));
             }
         }
+        return matches;
     }
 
-    private boolean checkLemmaInDatabase(String query){
-        Set<String> lemmaList = LemmaExecute.getLemmaList(query);
-        List<LemmaEntity> lemmaEntityList = lemmaRepository.findAllByLemmaName(lemmaList);
-        return lemmaEntityList.isEmpty();
-    }
-
-    private boolean checkStatusSites(String url){
-        List<SiteEntity> siteEntityList = new ArrayList<>();
-        if (url == null) {
-            siteEntityList = siteRepository.findAll();
-        } else {
-            SiteEntity siteEntity = siteRepository.findSiteEntityByUrl(url);
-            siteEntityList.add(siteEntity);
-        }
-        log.info("check site by url: " + siteEntityList.size());
-        return siteEntityList.isEmpty();
-    }
-
-    private void buildStringListAndLemmaEntityList(String query){
-        if(cachedLemmasToString != null && cashedLemmasToLemmaEntityList != null) {
-            cashedLemmasToLemmaEntityList.clear();
-            cachedLemmasToString.clear();
-        }
-        if(!checkQuery(query)) {
-            getLemmaEntityList(query);
-            getLemmasEntityToString();
+    private List<SiteEntity> getSiteEntityList(String url) {
+        if (url == null || url.isEmpty()) {
+            return siteRepository.findAllLive();
         }
+        SiteEntity siteEntity = siteRepository.findLiveSiteByUrl(url);
+        return siteEntity == null ? List.of() : List.of(siteEntity);
     }
 
-    private boolean checkQuery(String query){
+    private boolean checkQuery(String query) {
         return query == null || query.isEmpty();
     }
-}
\ No newline at end of file
+}
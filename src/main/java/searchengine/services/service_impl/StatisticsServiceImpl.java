@@ -13,6 +13,7 @@ import searchengine.repository.LemmaRepository;
 import searchengine.repository.PageRepository;
 import searchengine.repository.SiteRepository;
 import searchengine.services.interfaces.StatisticsService;
+import searchengine.util.ReworkString;
 
 import java.time.ZoneOffset;
 import java.util.ArrayList;
@@ -40,14 +41,11 @@ public class StatisticsServiceImpl implements StatisticsService {
             DetailedStatisticsItem item = new DetailedStatisticsItem();
             item.setName(site.getName());
             item.setUrl(site.getUrl());
-            List<SiteEntity> siteEntities = siteRepository.findByName(site.getName()).orElse(null);
-
-            if (siteEntities == null || siteEntities.isEmpty()) {
+            SiteEntity siteEntity = siteRepository.findSiteEntityByUrl(ReworkString.getStartPage(site.getUrl()));
+            if (siteEntity == null) {
                 continue;
             }
 
-            SiteEntity siteEntity = siteEntities.get(0);
-
             int pages = pageRepository.countPageEntitiesBySite(siteEntity);
             int lemmas = lemmaRepository.countLemmasEntitiesBySite(siteEntity);
             item.setPages(pages);
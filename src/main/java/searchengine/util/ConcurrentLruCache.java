@@ -0,0 +1,141 @@
+package searchengine.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded cache shared between threads. Keys are spread over independently locked
+ * access-ordered stripes, each evicting its least recently used entry once full.
+ * Values are computed outside the locks, so two threads missing the same key may both compute it.
+ * A caller may pass a validity check; a cached value failing it is dropped, counted as expired, and reloaded.
+ */
+public class ConcurrentLruCache<K, V> {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe<K, V>[] stripes;
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentLruCache(int capacity) {
+        this.capacity = capacity;
+        this.stripes = new Stripe[STRIPES];
+        int stripeCapacity = Math.max(1, capacity / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe<>(stripeCapacity, evictions);
+        }
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        return get(key, loader, value -> true);
+    }
+
+    public V get(K key, Function<K, V> loader, Predicate<V> stillValid) {
+        Stripe<K, V> stripe = stripeOf(key);
+        V value;
+        synchronized (stripe) {
+            value = stripe.get(key);
+            if (value != null && !stillValid.test(value)) {
+                stripe.remove(key);
+                expirations.increment();
+                value = null;
+            }
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        value = loader.apply(key);
+        if (value != null) {
+            synchronized (stripe) {
+                stripe.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public void invalidateAll() {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public void invalidateIf(Predicate<V> stale) {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.values().removeIf(stale);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private Stripe<K, V> stripeOf(K key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ hash >>> 16) & (STRIPES - 1)];
+    }
+
+    private static class Stripe<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+        private final LongAdder evictions;
+
+        private Stripe(int capacity, LongAdder evictions) {
+            super(Math.min(capacity, 1024), 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
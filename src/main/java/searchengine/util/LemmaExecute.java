@@ -15,6 +15,9 @@ public class LemmaExecute {
     private LuceneMorphology morphology;
     private static final String WORD_TYPE_REGEX = "\\W\\w&&[^а-яА-Я\\s]";
     private static final String[] particlesNames = new String[]{"МЕЖД", "ПРЕДЛ", "СОЮЗ"};
+    private static final int WORD_FORM_CACHE_CAPACITY = 200_000;
+    private static final ConcurrentLruCache<String, WordForm> wordFormCache =
+            new ConcurrentLruCache<>(WORD_FORM_CACHE_CAPACITY);
 
     static {
         try {
@@ -26,55 +29,66 @@ public class LemmaExecute {
 
     public static HashMap<String, Integer> getLemmaMap(String html) {
         HashMap<String, Integer> lemmaMap = new HashMap<>();
-        String[] words = arrayRussianWorlds(html);
-        for (String word : words) {
-            if(word.isBlank()){
-                continue;
+        RussianTokenizer.forEachToken(html, (word, start, end) -> {
+            WordForm wordForm = getWordForm(word);
+            if(wordForm.particle || wordForm.normalForms.isEmpty()) {
+                return;
             }
-            List<String> worldInfo = morphology.getMorphInfo(word);
-            if(anyWordBaseBelongToParticle(worldInfo)) {
-                continue;
-            }
-
-            List<String> normalizedWorldInfo = morphology.getNormalForms(word);
-            if(normalizedWorldInfo.isEmpty()) {
-                continue;
-            }
-
-            String normalizedWord = normalizedWorldInfo.get(0);
-
-            if (lemmaMap.containsKey(normalizedWord)) {
-                lemmaMap.put(normalizedWord, lemmaMap.get(normalizedWord) + 1);
-            } else {
-                lemmaMap.put(normalizedWord, 1);
-            }
-        }
+            lemmaMap.merge(wordForm.normalForms.get(0), 1, Integer::sum);
+        });
         return lemmaMap;
     }
 
     public static Set<String> getLemmaList(String text) {
-        String[] words = arrayRussianWorlds(text);
         Set<String> lemmaSet = new HashSet<>();
-        for (String word : words) {
-            if(!word.isEmpty() && isRussianWord(word)) {
-                List<String> worldInfo = morphology.getNormalForms(word);
-                if(anyWordBaseBelongToParticle(worldInfo)) {
-                    lemmaSet.add(word);
-                    continue;
-                }
-                lemmaSet.addAll(worldInfo);
+        RussianTokenizer.forEachToken(text, (word, start, end) -> {
+            WordForm wordForm = getWordForm(word);
+            if(!wordForm.russian) {
+                return;
             }
-        }
+            if(wordForm.normalFormParticle) {
+                lemmaSet.add(word);
+                return;
+            }
+            lemmaSet.addAll(wordForm.normalForms);
+        });
         return lemmaSet;
     }
 
+    /**
+     * Returns the words of the text, with their offsets, that are forms of any of the lemmas.
+     */
+    public static List<WordToken> findLemmaOccurrences(String text, Collection<String> lemmas) {
+        List<WordToken> occurrences = new ArrayList<>();
+        RussianTokenizer.forEachToken(text, (word, start, end) -> {
+            List<String> normalForms = getWordForm(word).normalForms;
+            if (lemmas.contains(word) || normalForms.stream().anyMatch(lemmas::contains)) {
+                occurrences.add(new WordToken(word, start, end));
+            }
+        });
+        return occurrences;
+    }
 
-    private String[] arrayRussianWorlds(String text) {
-        return text.toLowerCase(Locale.ROOT).replaceAll("[^а-я\\s]", "") .trim().split("\\s+");
+    public static ConcurrentLruCache<String, ?> getWordFormCache() {
+        return wordFormCache;
     }
 
-    private boolean isRussianWord(String word) {
-        List<String> worldInfo = morphology.getMorphInfo(word);
+    /**
+     * Both morphology lookups of a word form are done once and then served from the cache,
+     * for indexing and for search queries alike.
+     */
+    private WordForm getWordForm(String word) {
+        return wordFormCache.get(word, LemmaExecute::lookUpWordForm);
+    }
+
+    private WordForm lookUpWordForm(String word) {
+        List<String> morphInfo = morphology.getMorphInfo(word);
+        List<String> normalForms = List.copyOf(morphology.getNormalForms(word));
+        return new WordForm(anyWordBaseBelongToParticle(morphInfo), anyWordBaseBelongToParticle(normalForms),
+                isRussianWord(word, morphInfo), normalForms);
+    }
+
+    private boolean isRussianWord(String word, List<String> worldInfo) {
         for (String world : worldInfo) {
             if (word.matches(WORD_TYPE_REGEX)) {
                 return false;
@@ -95,5 +109,19 @@ public class LemmaExecute {
     private boolean anyWordBaseBelongToParticle(List<String> wordBaseForms) {
         return wordBaseForms.stream().anyMatch(LemmaExecute::isParticle);
     }
+
+    private static final class WordForm {
+        private final boolean particle;
+        private final boolean normalFormParticle;
+        private final boolean russian;
+        private final List<String> normalForms;
+
+        private WordForm(boolean particle, boolean normalFormParticle, boolean russian, List<String> normalForms) {
+            this.particle = particle;
+            this.normalFormParticle = normalFormParticle;
+            this.russian = russian;
+            this.normalForms = normalForms;
+        }
+    }
 }
 
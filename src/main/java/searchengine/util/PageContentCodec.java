@@ -0,0 +1,120 @@
+package searchengine.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compression of stored page html. The first byte tells the format, so rows written before
+ * compression are still read as text. Format 1 used a preset dictionary of hand-written markup and
+ * is only read now, with that same dictionary. New rows are plain deflate streams until a dictionary
+ * built by {@link PageDictionaryExporter} from pages of our sites measurably beats them; such a
+ * dictionary comes with a format byte of its own, since every stored row is bound to its dictionary.
+ */
+@UtilityClass
+public class PageContentCodec {
+
+    private static final byte FORMAT_DEFLATE_DICTIONARY_V1 = 1;
+    private static final byte FORMAT_DEFLATE_V2 = 2;
+    private static final String DICTIONARY_V1_RESOURCE = "/compression/page-dictionary-v1.txt";
+    private static final byte[] dictionaryV1 = loadDictionary(DICTIONARY_V1_RESOURCE);
+    private static final ThreadLocal<Deflater> deflaters =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION));
+    private static final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+    private static final LongAdder rawBytes = new LongAdder();
+    private static final LongAdder compressedBytes = new LongAdder();
+    private static final LongAdder compressedPages = new LongAdder();
+
+    public byte[] compress(String content) {
+        if (content == null) {
+            return null;
+        }
+        if (content.isEmpty()) {
+            return new byte[0];
+        }
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(raw.length / 4 + 64);
+        output.write(FORMAT_DEFLATE_V2);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            output.write(buffer, 0, deflater.deflate(buffer));
+        }
+        rawBytes.add(raw.length);
+        compressedBytes.add(output.size());
+        compressedPages.increment();
+        return output.toByteArray();
+    }
+
+    public String decompress(byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored.length == 0) {
+            return "";
+        }
+        if (stored[0] != FORMAT_DEFLATE_DICTIONARY_V1 && stored[0] != FORMAT_DEFLATE_V2) {
+            return new String(stored, StandardCharsets.UTF_8);
+        }
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(stored, 1, stored.length - 1);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(stored.length * 6);
+        byte[] buffer = new byte[8192];
+        try {
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && inflater.needsDictionary() && stored[0] == FORMAT_DEFLATE_DICTIONARY_V1) {
+                    inflater.setDictionary(dictionaryV1);
+                } else if (length == 0 && inflater.needsDictionary()) {
+                    throw new IllegalStateException("Compressed page content asks for an unknown dictionary");
+                } else if (length == 0 && inflater.needsInput()) {
+                    throw new IllegalStateException("Compressed page content is truncated");
+                }
+                output.write(buffer, 0, length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed page content is corrupted", e);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    public long getRawBytes() {
+        return rawBytes.sum();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    public long getCompressedPages() {
+        return compressedPages.sum();
+    }
+
+    public double getCompressionRatio() {
+        long compressed = compressedBytes.sum();
+        return compressed == 0 ? 0 : (double) rawBytes.sum() / compressed;
+    }
+
+    private byte[] loadDictionary(String resource) {
+        try (InputStream input = PageContentCodec.class.getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalStateException("Page compression dictionary " + resource + " is missing");
+            }
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
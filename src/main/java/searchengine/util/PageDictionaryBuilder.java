@@ -0,0 +1,108 @@
+package searchengine.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Builds a preset deflate dictionary from sample pages. Runs of bytes whose every 16-byte window
+ * recurs in at least a tenth of the samples are collected, ranked by length times the number of
+ * samples sharing them, and kept until the dictionary is full. The best ones go last: the end of
+ * the dictionary is nearest to the data and cheapest to refer to.
+ */
+@UtilityClass
+public class PageDictionaryBuilder {
+
+    private static final int GRAM = 16;
+
+    public byte[] build(List<byte[]> samples, int maxSize) {
+        int minSamples = Math.max(2, samples.size() / 10);
+        Map<Long, Integer> sampleCounts = new HashMap<>();
+        for (byte[] sample : samples) {
+            for (long gram : distinctGrams(sample)) {
+                sampleCounts.merge(gram, 1, Integer::sum);
+            }
+        }
+        Map<String, Long> segmentScores = new HashMap<>();
+        for (byte[] sample : samples) {
+            int start = -1;
+            long shared = 0;
+            for (int i = 0; i + GRAM <= sample.length + 1; i++) {
+                int count = i + GRAM <= sample.length ? sampleCounts.getOrDefault(hash(sample, i), 0) : 0;
+                if (count >= minSamples) {
+                    start = start < 0 ? i : start;
+                    shared += count;
+                } else if (start >= 0) {
+                    String segment = new String(sample, start, i - 1 + GRAM - start, StandardCharsets.ISO_8859_1);
+                    long score = shared * segment.length() / (i - start);
+                    segmentScores.merge(segment, score, Math::max);
+                    start = -1;
+                    shared = 0;
+                }
+            }
+        }
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(segmentScores.entrySet());
+        ranked.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        List<String> chosen = new ArrayList<>();
+        StringBuilder dictionary = new StringBuilder(maxSize);
+        for (Map.Entry<String, Long> entry : ranked) {
+            if (dictionary.length() > maxSize - GRAM) {
+                break;
+            }
+            String segment = entry.getKey();
+            if (dictionary.length() + segment.length() <= maxSize && dictionary.indexOf(segment) < 0) {
+                chosen.add(segment);
+                dictionary.append(segment);
+            }
+        }
+        Collections.reverse(chosen);
+        return String.join("", chosen).getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Size of the deflate stream of the data, with the dictionary preset unless it is empty.
+     */
+    public int deflatedSize(byte[] raw, byte[] dictionary) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            if (dictionary.length > 0) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            int size = 0;
+            while (!deflater.finished()) {
+                size += deflater.deflate(buffer);
+            }
+            return size;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private Set<Long> distinctGrams(byte[] sample) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= sample.length; i++) {
+            grams.add(hash(sample, i));
+        }
+        return grams;
+    }
+
+    private long hash(byte[] data, int offset) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = offset; i < offset + GRAM; i++) {
+            hash = (hash ^ (data[i] & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,77 @@
+package searchengine.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.model.SiteEntity;
+import searchengine.repository.SiteRepository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a page compression dictionary from a random sample of the stored pages of the live sites
+ * and writes it to compression.dictionary.export.file. Every fifth sampled page is left out of the
+ * training and used to measure the compression ratio of plain deflate against deflate with the
+ * built dictionary, so the log tells whether the dictionary is worth a new format byte in
+ * {@link PageContentCodec}. Runs once at startup when compression.dictionary.export.enabled is set.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "compression.dictionary.export.enabled", havingValue = "true")
+public class PageDictionaryExporter implements ApplicationRunner {
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int MIN_SAMPLE_PAGES = 10;
+    private static final String SELECT_SAMPLE = "SELECT content FROM pages WHERE site_id = ? AND code = 200 "
+            + "ORDER BY RAND() LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SiteRepository siteRepository;
+    private final PropertiesProject propertiesProject;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<SiteEntity> sites = siteRepository.findAllLive();
+        int pagesPerSite = Math.max(1, propertiesProject.getDictionarySamplePages() / Math.max(1, sites.size()));
+        List<byte[]> training = new ArrayList<>();
+        List<byte[]> heldOut = new ArrayList<>();
+        for (SiteEntity siteEntity : sites) {
+            jdbcTemplate.query(SELECT_SAMPLE, resultSet -> {
+                String html = PageContentCodec.decompress(resultSet.getBytes(1));
+                if (html != null && !html.isEmpty()) {
+                    byte[] page = html.getBytes(StandardCharsets.UTF_8);
+                    (training.size() >= 4 * (heldOut.size() + 1) ? heldOut : training).add(page);
+                }
+            }, siteEntity.getId(), pagesPerSite);
+        }
+        if (training.size() + heldOut.size() < MIN_SAMPLE_PAGES || heldOut.isEmpty()) {
+            log.warn("Only " + (training.size() + heldOut.size()) + " stored pages found, no dictionary built");
+            return;
+        }
+        byte[] dictionary = PageDictionaryBuilder.build(training, DICTIONARY_SIZE);
+        long rawBytes = 0;
+        long deflatedBytes = 0;
+        long dictionaryBytes = 0;
+        for (byte[] page : heldOut) {
+            rawBytes += page.length;
+            deflatedBytes += PageDictionaryBuilder.deflatedSize(page, new byte[0]);
+            dictionaryBytes += PageDictionaryBuilder.deflatedSize(page, dictionary);
+        }
+        Path file = Path.of(propertiesProject.getDictionaryExportFile());
+        Files.write(file, dictionary);
+        log.info(String.format("Dictionary of %d bytes built from %d pages of %d sites written to %s. "
+                        + "Compression ratio on %d other pages (%d bytes): deflate %.2f, deflate with dictionary %.2f",
+                dictionary.length, training.size(), sites.size(), file.toAbsolutePath(), heldOut.size(), rawBytes,
+                (double) rawBytes / deflatedBytes, (double) rawBytes / dictionaryBytes));
+    }
+}
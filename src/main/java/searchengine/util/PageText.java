@@ -0,0 +1,33 @@
+package searchengine.util;
+
+import lombok.Value;
+import org.jsoup.nodes.Document;
+
+/**
+ * Title and visible body text of a page, taken from its document once at index time
+ * and stored with the page, so lemmatization and search never parse the html again.
+ */
+@Value
+public class PageText {
+    public static final PageText EMPTY = new PageText("", "");
+    /**
+     * Length of the pages.title column; a longer title is cut so the page still fits.
+     */
+    public static final int MAX_TITLE_LENGTH = 512;
+
+    String title;
+    String text;
+
+    public static PageText of(Document document) {
+        return new PageText(truncate(document.title(), MAX_TITLE_LENGTH),
+                document.body() == null ? document.text() : document.body().text());
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value.length() <= maxLength) {
+            return value;
+        }
+        int end = Character.isHighSurrogate(value.charAt(maxLength - 1)) ? maxLength - 1 : maxLength;
+        return value.substring(0, end);
+    }
+}
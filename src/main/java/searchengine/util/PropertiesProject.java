@@ -4,6 +4,9 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import searchengine.services.crawler.SimHashIndex;
+
+import javax.annotation.PostConstruct;
 
 @Component
 @Getter
@@ -19,6 +22,99 @@ public class PropertiesProject {
     @Value("${file.extensions}")
     private String fileExtensions;
 
+    @Value("${crawler.initial-request-interval}")
+    private long initialRequestInterval;
+
+    @Value("${crawler.max-request-interval}")
+    private long maxRequestInterval;
+
+    @Value("${crawler.worker-threads}")
+    private int crawlerWorkerThreads;
+
+    @Value("${crawler.max-concurrency-per-site}")
+    private int maxConcurrencyPerSite;
+
+    @Value("${crawler.initial-concurrency-per-site}")
+    private int initialConcurrencyPerSite;
+
+    @Value("${crawler.latency-tolerance}")
+    private double latencyTolerance;
+
+    @Value("${crawler.request-timeout}")
+    private long requestTimeout;
+
+    @Value("${crawler.max-body-size}")
+    private long maxBodySize;
+
+    @Value("${crawler.seen-urls.max-in-memory}")
+    private int seenUrlsMaxInMemory;
+
+    @Value("${crawler.seen-urls.bloom-filter}")
+    private boolean seenUrlsBloomFilter;
+
+    @Value("${crawler.seen-urls.spill-capacity}")
+    private int seenUrlsSpillCapacity;
+
+    @Value("${crawler.seen-urls.spill-directory}")
+    private String seenUrlsSpillDirectory;
+
+    @Value("${crawler.checkpoint.directory}")
+    private String checkpointDirectory;
+
+    @Value("${crawler.checkpoint.interval}")
+    private long checkpointInterval;
+
+    @Value("${crawler.robots.enabled}")
+    private boolean robotsEnabled;
+
+    @Value("${crawler.robots.agent}")
+    private String robotsAgent;
+
+    @Value("${crawler.robots.max-crawl-delay}")
+    private long robotsMaxCrawlDelay;
+
+    @Value("${crawler.sitemap.max-files}")
+    private int sitemapMaxFiles;
+
+    @Value("${crawler.sitemap.max-urls}")
+    private int sitemapMaxUrls;
+
+    @Value("${indexing.near-duplicates.enabled}")
+    private boolean nearDuplicatesEnabled;
+
+    @Value("${indexing.near-duplicates.max-distance}")
+    private int nearDuplicatesMaxDistance;
+
+    @Value("${indexing.pipeline.parse-threads}")
+    private int pipelineParseThreads;
+
+    @Value("${indexing.pipeline.persist-threads}")
+    private int pipelinePersistThreads;
+
+    @Value("${indexing.pipeline.lemmatize-threads}")
+    private int pipelineLemmatizeThreads;
+
+    @Value("${indexing.pipeline.queue-capacity}")
+    private int pipelineQueueCapacity;
+
+    @Value("${indexing.flush.max-rows}")
+    private int flushMaxRows;
+
+    @Value("${indexing.flush.interval}")
+    private long flushInterval;
+
+    @Value("${search.cache.capacity}")
+    private int searchCacheCapacity;
+
+    @Value("${search.cache.ttl}")
+    private long searchCacheTtl;
+
+    @Value("${compression.dictionary.export.file}")
+    private String dictionaryExportFile;
+
+    @Value("${compression.dictionary.export.sample-pages}")
+    private int dictionarySamplePages;
+
     @Value("${error.interrupted}")
     private String interruptedByUserMessage;
 
@@ -27,4 +123,15 @@ public class PropertiesProject {
 
     @Value("${error.unknown}")
     private String unknownError;
+
+    /**
+     * A distance the near-duplicate index can't serve is reported at startup rather than on the first crawl.
+     */
+    @PostConstruct
+    void checkNearDuplicatesMaxDistance() {
+        if (nearDuplicatesMaxDistance < 0 || nearDuplicatesMaxDistance > SimHashIndex.MAX_DISTANCE) {
+            throw new IllegalStateException("indexing.near-duplicates.max-distance must be between 0 and "
+                    + SimHashIndex.MAX_DISTANCE + ", got " + nearDuplicatesMaxDistance);
+        }
+    }
 }
@@ -1,13 +1,8 @@
 package searchengine.util;
 
 import lombok.experimental.UtilityClass;
-import org.jsoup.nodes.Element;
 import searchengine.exceptions.SiteExceptions;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.Set;
-
 @UtilityClass
 public class ReworkString {
     private final String SLASH = "/";
@@ -16,16 +11,21 @@ public class ReworkString {
         return siteNameWithSlash.substring(0, siteNameWithSlash.length() - 1);
     }
 
+    public String getRequestUrl(String pagePath) {
+        int pathStart = pagePath.indexOf(SLASH, pagePath.indexOf("//") + 2);
+        if (pathStart < 0 || pagePath.length() - 1 <= pathStart || !pagePath.endsWith(SLASH)) {
+            return pagePath;
+        }
+        int segmentStart = pagePath.lastIndexOf(SLASH, pagePath.length() - 2);
+        return pagePath.substring(segmentStart, pagePath.length() - 1).contains(".") ? cutSlash(pagePath) : pagePath;
+    }
+
     public String getStartPage(String path) {
-        URL url;
-        try {
-            url = new URL(path);
-        } catch (MalformedURLException e) {
+        String homePage = UrlCanonicalizer.homePageOf(path);
+        if (homePage == null) {
             throw new SiteExceptions("Site url is wrong");
         }
-        String domain = url.getHost();
-        domain = domain.startsWith("www.") ? domain.substring(4) : domain;
-        return url.getProtocol() + "://" + domain + SLASH;
+        return homePage;
     }
 
     public String cutProtocolAndHost(String pagePath, String homePage) {
@@ -48,28 +48,13 @@ public class ReworkString {
         return pathToSave;
     }
 
-    public boolean isHrefValid(String homePage, String href, String fileExtensions) {
-        return href.startsWith(homePage)
-                && isHrefToPage(href, fileExtensions)
-                && !href.equals(homePage)
-                && !href.equals(homePage + SLASH);
-    }
-
-    public boolean isPageAdded(Set<String> webpages, String href) {
-        href += href.endsWith(SLASH) ? "" : SLASH;
-        return webpages.contains(href);
-    }
-
-    public String getHrefFromAnchor(Element anchor) {
-        String href = anchor.absUrl("href").trim().replace("\u00A0", "");
-        href = href.endsWith(SLASH) ? href : href + SLASH;
-        return href.replace("//www.", "//");
-    }
-
-    private boolean isHrefToPage(String href, String fileExtensions) {
-        if (href.matches(".*([#?\"@\\\\]).*")) {
-            return false;
+    public String getPathOfUrl(String pageUrl) {
+        String requestUrl = getRequestUrl(pageUrl);
+        int fragment = requestUrl.indexOf('#');
+        if (fragment >= 0) {
+            requestUrl = requestUrl.substring(0, fragment);
         }
-        return !href.matches(".*\\.(" + fileExtensions + ")/?");
+        int pathStart = requestUrl.indexOf(SLASH, requestUrl.indexOf("//") + 2);
+        return pathStart < 0 ? SLASH : requestUrl.substring(pathStart);
     }
 }
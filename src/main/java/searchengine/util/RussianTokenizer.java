@@ -0,0 +1,65 @@
+package searchengine.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text into runs of Russian letters in a single pass over its chars.
+ * Each word is handed over lower-cased, with "ё" folded to "е", together with
+ * its [start, end) offsets in the original text; nothing else is copied.
+ */
+public final class RussianTokenizer {
+
+    @FunctionalInterface
+    public interface TokenConsumer {
+        void accept(String word, int start, int end);
+    }
+
+    private RussianTokenizer() {
+    }
+
+    public static void forEachToken(CharSequence text, TokenConsumer consumer) {
+        char[] buffer = new char[32];
+        int length = 0;
+        int start = -1;
+        for (int i = 0, size = text.length(); i <= size; i++) {
+            char letter = i < size ? toRussianLowerCase(text.charAt(i)) : 0;
+            if (letter != 0) {
+                if (length == buffer.length) {
+                    char[] grown = new char[buffer.length * 2];
+                    System.arraycopy(buffer, 0, grown, 0, length);
+                    buffer = grown;
+                }
+                if (length == 0) {
+                    start = i;
+                }
+                buffer[length++] = letter;
+            } else if (length > 0) {
+                consumer.accept(new String(buffer, 0, length), start, i);
+                length = 0;
+            }
+        }
+    }
+
+    public static List<WordToken> tokenize(CharSequence text) {
+        List<WordToken> tokens = new ArrayList<>();
+        forEachToken(text, (word, start, end) -> tokens.add(new WordToken(word, start, end)));
+        return tokens;
+    }
+
+    /**
+     * Returns the lower-case form of a Russian letter, or 0 for any other char.
+     */
+    private static char toRussianLowerCase(char c) {
+        if (c >= 'а' && c <= 'я') {
+            return c;
+        }
+        if (c >= 'А' && c <= 'Я') {
+            return (char) (c + ('а' - 'А'));
+        }
+        if (c == 'ё' || c == 'Ё') {
+            return 'е';
+        }
+        return 0;
+    }
+}
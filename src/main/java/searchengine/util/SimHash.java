@@ -0,0 +1,70 @@
+package searchengine.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 64-bit SimHash of a text over shingles of three consecutive words.
+ * Texts with close wording get fingerprints that differ in few bits.
+ */
+@UtilityClass
+public class SimHash {
+
+    private final int SHINGLE_SIZE = 3;
+    private final int MIN_SHINGLES = 16;
+    private final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Returns 0 for texts too short to tell copies from pages that merely share a template.
+     */
+    public long of(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        int shingles = words.size() - SHINGLE_SIZE + 1;
+        if (shingles < MIN_SHINGLES) {
+            return 0;
+        }
+        int[] weights = new int[64];
+        for (int i = 0; i < shingles; i++) {
+            long hash = hash(words, i);
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += (hash >>> bit & 1) == 1 ? 1 : -1;
+            }
+        }
+        long simHash = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash == 0 ? 1 : simHash;
+    }
+
+    public int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    private long hash(List<String> words, int from) {
+        long hash = FNV_OFFSET;
+        for (int i = from; i < from + SHINGLE_SIZE; i++) {
+            String word = words.get(i);
+            for (int j = 0; j < word.length(); j++) {
+                hash = (hash ^ word.charAt(j)) * FNV_PRIME;
+            }
+            hash = (hash ^ ' ') * FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+}
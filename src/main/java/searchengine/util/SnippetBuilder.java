@@ -0,0 +1,84 @@
+package searchengine.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+@Slf4j
+@Component
+public class SnippetBuilder {
+
+    private static final int SNIPPET_LENGTH = 240;
+    private static final int LEADING_CONTEXT = 40;
+
+    /**
+     * Cuts the part of the stored page text with the most word forms of the query lemmas and marks them bold.
+     * Word positions come from the tokenizer, so every form of a lemma is found, not only the exact lemma string.
+     * A page matching the query by its title alone gets the beginning of its text.
+     */
+    public String build(String text, Collection<String> lemmas) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        List<WordToken> occurrences = LemmaExecute.findLemmaOccurrences(text, lemmas);
+        if (occurrences.isEmpty()) {
+            int end = wordBoundaryAfter(text, Math.min(text.length(), SNIPPET_LENGTH));
+            return text.substring(0, end) + (end < text.length() ? " ..." : "");
+        }
+        int windowStart = findDensestWindow(occurrences);
+        int start = wordBoundaryBefore(text, Math.max(0, windowStart - LEADING_CONTEXT));
+        int end = wordBoundaryAfter(text, Math.min(text.length(), start + SNIPPET_LENGTH));
+
+        StringBuilder snippet = new StringBuilder(end - start + 32);
+        snippet.append(start > 0 ? "... " : "");
+        int position = start;
+        for (WordToken occurrence : occurrences) {
+            if (occurrence.getStart() < start || occurrence.getEnd() > end) {
+                continue;
+            }
+            snippet.append(text, position, occurrence.getStart())
+                    .append("<b>").append(text, occurrence.getStart(), occurrence.getEnd()).append("</b>");
+            position = occurrence.getEnd();
+        }
+        snippet.append(text, position, end);
+        snippet.append(end < text.length() ? " ..." : "");
+        return snippet.toString();
+    }
+
+    private int findDensestWindow(List<WordToken> occurrences) {
+        int bestStart = occurrences.get(0).getStart();
+        int bestCount = 0;
+        int last = 0;
+        for (int first = 0; first < occurrences.size(); first++) {
+            int windowStart = occurrences.get(first).getStart();
+            last = Math.max(last, first);
+            while (last + 1 < occurrences.size()
+                    && occurrences.get(last + 1).getEnd() <= windowStart + SNIPPET_LENGTH - LEADING_CONTEXT) {
+                last++;
+            }
+            if (last - first + 1 > bestCount) {
+                bestCount = last - first + 1;
+                bestStart = windowStart;
+            }
+        }
+        return bestStart;
+    }
+
+    private int wordBoundaryBefore(String text, int index) {
+        if (index == 0) {
+            return 0;
+        }
+        int space = text.lastIndexOf(' ', index);
+        return space < 0 ? 0 : space + 1;
+    }
+
+    private int wordBoundaryAfter(String text, int index) {
+        if (index >= text.length()) {
+            return text.length();
+        }
+        int space = text.indexOf(' ', index);
+        return space < 0 ? text.length() : space;
+    }
+}
@@ -0,0 +1,175 @@
+package searchengine.util;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Brings discovered links to the form pages are crawled and stored under:
+ * lower-case scheme and host, no "www." prefix, no default port, no fragment, trailing slash.
+ * Links are scanned as char ranges; the file extension filter is expanded once from
+ * the file.extensions property into a set instead of being matched as a regex per link.
+ */
+@Component
+public class UrlCanonicalizer {
+
+    private static final String SCHEME_SEPARATOR = "://";
+    private static final char NO_BREAK_SPACE = '\u00A0';
+
+    private final Set<String> fileExtensions = new HashSet<>();
+    private final Pattern irregularExtensions;
+
+    public UrlCanonicalizer(PropertiesProject propertiesProject) {
+        StringBuilder irregular = new StringBuilder();
+        for (String alternative : propertiesProject.getFileExtensions().split("\\|")) {
+            if (alternative.matches("[A-Za-z0-9?]+") && !alternative.startsWith("?")) {
+                expandOptionalChars(alternative, 0, new StringBuilder());
+            } else if (!alternative.isEmpty()) {
+                irregular.append(irregular.length() == 0 ? "" : "|").append(alternative);
+            }
+        }
+        irregularExtensions = irregular.length() == 0 ? null : Pattern.compile(irregular.toString());
+    }
+
+    /**
+     * Returns the canonical form of an absolute http(s) url, or null when the url is not one.
+     */
+    public String canonicalize(String absoluteUrl) {
+        int start = 0;
+        int end = absoluteUrl.length();
+        while (start < end && isBlank(absoluteUrl.charAt(start))) {
+            start++;
+        }
+        while (end > start && isBlank(absoluteUrl.charAt(end - 1))) {
+            end--;
+        }
+        StringBuilder canonical = new StringBuilder(end - start + 1);
+        int hostEnd = appendSchemeAndHost(canonical, absoluteUrl, start, end);
+        if (hostEnd < 0) {
+            return null;
+        }
+        int fragment = absoluteUrl.indexOf('#', hostEnd);
+        int pathEnd = fragment < 0 || fragment > end ? end : fragment;
+        for (int i = hostEnd; i < pathEnd; i++) {
+            char c = absoluteUrl.charAt(i);
+            if (c != NO_BREAK_SPACE) {
+                canonical.append(c);
+            }
+        }
+        if (canonical.charAt(canonical.length() - 1) != '/') {
+            canonical.append('/');
+        }
+        return canonical.toString();
+    }
+
+    /**
+     * Returns the home page of an absolute http(s) url, with its scheme and host in the form
+     * canonicalize gives them, or null when the url is not one.
+     */
+    public static String homePageOf(String absoluteUrl) {
+        String url = absoluteUrl.trim();
+        StringBuilder homePage = new StringBuilder(url.length() + 1);
+        return appendSchemeAndHost(homePage, url, 0, url.length()) < 0 ? null : homePage.append('/').toString();
+    }
+
+    /**
+     * Tells whether a canonical url is a page of the site other than its home page:
+     * no query, no characters the site paths never use and no excluded file extension.
+     */
+    public boolean isPageLink(String homePage, String href) {
+        if (href == null || !href.startsWith(homePage) || href.length() <= homePage.length()
+                || (href.length() == homePage.length() + 1 && href.charAt(homePage.length()) == '/')) {
+            return false;
+        }
+        int lastDot = -1;
+        for (int i = homePage.length(); i < href.length(); i++) {
+            char c = href.charAt(i);
+            if (c == '#' || c == '?' || c == '"' || c == '@' || c == '\\') {
+                return false;
+            }
+            if (c == '.') {
+                lastDot = i;
+            } else if (c == '/' && i < href.length() - 1) {
+                lastDot = -1;
+            }
+        }
+        return lastDot < 0 || !isFileExtension(href, lastDot + 1, href.endsWith("/") ? href.length() - 1 : href.length());
+    }
+
+    private boolean isFileExtension(String href, int start, int end) {
+        String extension = href.substring(start, end);
+        return fileExtensions.contains(extension.toLowerCase(Locale.ROOT))
+                || (irregularExtensions != null && irregularExtensions.matcher(extension).matches());
+    }
+
+    private void expandOptionalChars(String alternative, int index, StringBuilder prefix) {
+        if (index == alternative.length()) {
+            fileExtensions.add(prefix.toString().toLowerCase(Locale.ROOT));
+            return;
+        }
+        char c = alternative.charAt(index);
+        boolean optional = index + 1 < alternative.length() && alternative.charAt(index + 1) == '?';
+        int next = optional ? index + 2 : index + 1;
+        prefix.append(c);
+        expandOptionalChars(alternative, next, prefix);
+        prefix.setLength(prefix.length() - 1);
+        if (optional) {
+            expandOptionalChars(alternative, next, prefix);
+        }
+    }
+
+    /**
+     * Appends the lower-case scheme and host, without "www." and the default port, and returns
+     * where the host ends in the url, or -1 when the url is not an absolute http(s) one.
+     */
+    private static int appendSchemeAndHost(StringBuilder canonical, String url, int start, int end) {
+        int schemeEnd = url.indexOf(SCHEME_SEPARATOR, start);
+        if (schemeEnd < 0 || schemeEnd >= end || !isHttpScheme(url, start, schemeEnd)) {
+            return -1;
+        }
+        int hostStart = schemeEnd + SCHEME_SEPARATOR.length();
+        int hostEnd = hostStart;
+        while (hostEnd < end && "/?#".indexOf(url.charAt(hostEnd)) < 0) {
+            hostEnd++;
+        }
+        if (url.regionMatches(true, hostStart, "www.", 0, 4)) {
+            hostStart += 4;
+        }
+        if (hostStart >= hostEnd) {
+            return -1;
+        }
+        appendLowerCase(canonical, url, start, schemeEnd);
+        canonical.append(SCHEME_SEPARATOR);
+        int portStart = url.lastIndexOf(':', hostEnd - 1);
+        if (portStart >= hostStart && isDefaultPort(canonical, url, portStart + 1, hostEnd)) {
+            appendLowerCase(canonical, url, hostStart, portStart);
+        } else {
+            appendLowerCase(canonical, url, hostStart, hostEnd);
+        }
+        return hostEnd;
+    }
+
+    private static boolean isHttpScheme(String url, int start, int schemeEnd) {
+        int length = schemeEnd - start;
+        return (length == 4 && url.regionMatches(true, start, "http", 0, 4))
+                || (length == 5 && url.regionMatches(true, start, "https", 0, 5));
+    }
+
+    private static boolean isDefaultPort(StringBuilder scheme, String url, int start, int end) {
+        String defaultPort = scheme.charAt(4) == 's' ? "443" : "80";
+        return end - start == defaultPort.length() && url.startsWith(defaultPort, start);
+    }
+
+    private static void appendLowerCase(StringBuilder builder, String source, int start, int end) {
+        for (int i = start; i < end; i++) {
+            builder.append(Character.toLowerCase(source.charAt(i)));
+        }
+    }
+
+    private static boolean isBlank(char c) {
+        return c == NO_BREAK_SPACE || Character.isWhitespace(c);
+    }
+}
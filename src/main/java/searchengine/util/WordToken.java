@@ -0,0 +1,10 @@
+package searchengine.util;
+
+import lombok.Value;
+
+@Value
+public class WordToken {
+    String word;
+    int start;
+    int end;
+}
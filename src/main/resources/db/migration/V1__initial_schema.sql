@@ -0,0 +1,51 @@
+-- Schema as it was generated by Hibernate before migrations were introduced.
+-- Existing databases are baselined below this version, so the statements must stay idempotent.
+
+CREATE TABLE IF NOT EXISTS site (
+    id          INT          NOT NULL AUTO_INCREMENT,
+    status      VARCHAR(255) NOT NULL,
+    status_time DATETIME(6)  NOT NULL,
+    last_error  TEXT,
+    url         VARCHAR(255) NOT NULL,
+    name        VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS pages (
+    id            INT          NOT NULL AUTO_INCREMENT,
+    site_id       INT          NOT NULL,
+    path          VARCHAR(255) NOT NULL,
+    code          INT          NOT NULL,
+    content       LONGBLOB,
+    title         VARCHAR(512),
+    text          LONGTEXT,
+    etag          VARCHAR(255),
+    last_modified VARCHAR(64),
+    content_hash  VARCHAR(64),
+    simhash       BIGINT,
+    duplicate_of  INT,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_pages_path_site (path, site_id),
+    KEY idx_indexes_page_id (path),
+    CONSTRAINT fk_pages_site_id FOREIGN KEY (site_id) REFERENCES site (id) ON DELETE CASCADE
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS lemmas (
+    id        BIGINT       NOT NULL AUTO_INCREMENT,
+    lemma     VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL,
+    site_id   INT          NOT NULL,
+    frequency INT          NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_lemmas_site_lemma (site_id, lemma),
+    CONSTRAINT fk_lemmas_site_id FOREIGN KEY (site_id) REFERENCES site (id) ON DELETE CASCADE
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS indexes_table (
+    id          INT    NOT NULL AUTO_INCREMENT,
+    page_id     INT    NOT NULL,
+    lemma_id    BIGINT NOT NULL,
+    rank_lemmas FLOAT  NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_page_id FOREIGN KEY (page_id) REFERENCES pages (id) ON DELETE CASCADE,
+    CONSTRAINT fk_lemma_id FOREIGN KEY (lemma_id) REFERENCES lemmas (id) ON DELETE CASCADE
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
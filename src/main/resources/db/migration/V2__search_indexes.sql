@@ -0,0 +1,63 @@
+-- Databases created by ddl-auto: update predate compressed content, IDENTITY page ids
+-- and binary lemma collation; these statements are no-ops on a schema created by V1.
+SET FOREIGN_KEY_CHECKS = 0;
+ALTER TABLE pages MODIFY id INT NOT NULL AUTO_INCREMENT;
+ALTER TABLE pages MODIFY content LONGBLOB;
+ALTER TABLE lemmas MODIFY lemma VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL;
+SET FOREIGN_KEY_CHECKS = 1;
+
+-- Databases of the baseline release are baselined at version 0, so V1 left their tables as they
+-- were: add the page columns introduced since, skipping the ones a V1 schema already has.
+SET @statement = (SELECT IFNULL(CONCAT('ALTER TABLE pages ', GROUP_CONCAT('ADD COLUMN ', definition ORDER BY ordinal)), 'DO 0')
+                  FROM (SELECT 1 AS ordinal, 'title' AS name, 'title VARCHAR(512)' AS definition
+                        UNION ALL SELECT 2, 'text', 'text LONGTEXT'
+                        UNION ALL SELECT 3, 'etag', 'etag VARCHAR(255)'
+                        UNION ALL SELECT 4, 'last_modified', 'last_modified VARCHAR(64)'
+                        UNION ALL SELECT 5, 'content_hash', 'content_hash VARCHAR(64)'
+                        UNION ALL SELECT 6, 'simhash', 'simhash BIGINT'
+                        UNION ALL SELECT 7, 'duplicate_of', 'duplicate_of INT') columns_to_add
+                  WHERE name NOT IN (SELECT COLUMN_NAME FROM information_schema.COLUMNS
+                                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'pages'));
+PREPARE statement FROM @statement;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+-- Lemma frequencies are upserted against (site_id, lemma). The baseline release could store
+-- a lemma of a site twice: merge such rows into the oldest one before adding the key.
+UPDATE indexes_table i
+    JOIN lemmas l ON l.id = i.lemma_id
+    JOIN (SELECT site_id, lemma, MIN(id) AS kept_id FROM lemmas GROUP BY site_id, lemma HAVING COUNT(*) > 1) d
+        ON d.site_id = l.site_id AND d.lemma = l.lemma
+SET i.lemma_id = d.kept_id
+WHERE l.id <> d.kept_id;
+
+UPDATE lemmas l
+    JOIN (SELECT MIN(id) AS kept_id, SUM(frequency) AS frequency FROM lemmas GROUP BY site_id, lemma HAVING COUNT(*) > 1) d
+        ON d.kept_id = l.id
+SET l.frequency = d.frequency;
+
+DELETE l FROM lemmas l
+    JOIN (SELECT site_id, lemma, MIN(id) AS kept_id FROM lemmas GROUP BY site_id, lemma HAVING COUNT(*) > 1) d
+        ON d.site_id = l.site_id AND d.lemma = l.lemma
+WHERE l.id <> d.kept_id;
+
+SET @statement = (SELECT IF(COUNT(*) = 0,
+                            'ALTER TABLE lemmas ADD CONSTRAINT uk_lemmas_site_lemma UNIQUE (site_id, lemma)', 'DO 0')
+                  FROM information_schema.STATISTICS
+                  WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'lemmas' AND INDEX_NAME = 'uk_lemmas_site_lemma');
+PREPARE statement FROM @statement;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+-- Query lemmas by lemma across sites (findAllByLemmaNameAndSiteName).
+CREATE INDEX idx_lemmas_lemma_frequency ON lemmas (lemma, frequency);
+
+-- Posting lists: pages and ranks of a lemma straight from the index, in page id order
+-- (findPostingsByLemmaId, the in-memory index load); the lemma_id foreign key uses it as well.
+CREATE INDEX idx_index_lemma_page ON indexes_table (lemma_id, page_id, rank_lemmas);
+
+-- Lemmas of a page when it is replaced or removed (findLemmasByPageId, deleteAllByPageId).
+CREATE INDEX idx_index_page_lemma ON indexes_table (page_id, lemma_id);
+
+-- Pages of a site (findIdsBySiteId, findSimHashesBySiteId, page counts).
+CREATE INDEX idx_pages_site_simhash ON pages (site_id, simhash);
@@ -0,0 +1,6 @@
+-- Every site row is one generation of the site; search reads the live one only.
+ALTER TABLE site
+    ADD COLUMN generation INT NOT NULL DEFAULT 1,
+    ADD COLUMN live BIT(1) NOT NULL DEFAULT b'1';
+
+CREATE INDEX idx_site_url_generation ON site (url, generation);
@@ -0,0 +1,57 @@
+-- Every generation (site row) keeps its pages, lemmas and index rows in a partition of its own,
+-- s<site id>, so a retired generation is removed with ALTER TABLE ... DROP PARTITION instead of
+-- row by row. SiteGenerations adds the partitions of a new generation before anything is written.
+-- Partitioned InnoDB tables can't have foreign keys, and every unique key has to include site_id.
+SET SESSION group_concat_max_len = 1000000;
+
+SET @statement = (SELECT IFNULL(CONCAT('ALTER TABLE indexes_table ', GROUP_CONCAT('DROP FOREIGN KEY ', CONSTRAINT_NAME)), 'DO 0')
+                 FROM information_schema.TABLE_CONSTRAINTS
+                 WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'indexes_table' AND CONSTRAINT_TYPE = 'FOREIGN KEY');
+PREPARE statement FROM @statement;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @statement = (SELECT IFNULL(CONCAT('ALTER TABLE lemmas ', GROUP_CONCAT('DROP FOREIGN KEY ', CONSTRAINT_NAME)), 'DO 0')
+                 FROM information_schema.TABLE_CONSTRAINTS
+                 WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'lemmas' AND CONSTRAINT_TYPE = 'FOREIGN KEY');
+PREPARE statement FROM @statement;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @statement = (SELECT IFNULL(CONCAT('ALTER TABLE pages ', GROUP_CONCAT('DROP FOREIGN KEY ', CONSTRAINT_NAME)), 'DO 0')
+                 FROM information_schema.TABLE_CONSTRAINTS
+                 WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'pages' AND CONSTRAINT_TYPE = 'FOREIGN KEY');
+PREPARE statement FROM @statement;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+-- Index rows carry the generation of their page so that they can be partitioned the same way.
+ALTER TABLE indexes_table ADD COLUMN site_id INT NOT NULL DEFAULT 0 AFTER id;
+UPDATE indexes_table i JOIN pages p ON p.id = i.page_id SET i.site_id = p.site_id;
+DELETE FROM indexes_table WHERE site_id = 0;
+ALTER TABLE indexes_table ALTER COLUMN site_id DROP DEFAULT;
+
+ALTER TABLE pages DROP PRIMARY KEY, ADD PRIMARY KEY (id, site_id);
+ALTER TABLE lemmas DROP PRIMARY KEY, ADD PRIMARY KEY (id, site_id);
+ALTER TABLE indexes_table DROP PRIMARY KEY, ADD PRIMARY KEY (id, site_id);
+
+-- p0 only exists because a LIST partitioned table needs at least one partition.
+SET @partitions = (SELECT CONCAT('(PARTITION p0 VALUES IN (0)',
+                                 IFNULL(CONCAT(', ', GROUP_CONCAT('PARTITION s', id, ' VALUES IN (', id, ')' ORDER BY id)), ''),
+                                 ')')
+                   FROM site);
+
+SET @statement = CONCAT('ALTER TABLE pages PARTITION BY LIST (site_id) ', @partitions);
+PREPARE statement FROM @statement;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @statement = CONCAT('ALTER TABLE lemmas PARTITION BY LIST (site_id) ', @partitions);
+PREPARE statement FROM @statement;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @statement = CONCAT('ALTER TABLE indexes_table PARTITION BY LIST (site_id) ', @partitions);
+PREPARE statement FROM @statement;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
@@ -0,0 +1,118 @@
+package searchengine.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import searchengine.model.LemmaEntity;
+import searchengine.model.PageEntity;
+import searchengine.model.SiteEntity;
+
+import javax.persistence.Column;
+import javax.persistence.JoinColumn;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrades a database shaped the way ddl-auto: update created it in the baseline release,
+ * with a lemma stored twice, the way the application baselines it, and checks that every
+ * mapped column exists afterwards and the data survived.
+ */
+@Testcontainers
+class BaselineSchemaMigrationTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createBaselineSchema() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(),
+                MYSQL.getPassword()));
+        jdbcTemplate.execute("CREATE TABLE hibernate_sequence (next_val BIGINT) ENGINE=InnoDB");
+        jdbcTemplate.execute("CREATE TABLE site (id INTEGER NOT NULL AUTO_INCREMENT, last_error TEXT, "
+                + "name VARCHAR(255) NOT NULL, status VARCHAR(255) NOT NULL, status_time DATETIME(6) NOT NULL, "
+                + "url VARCHAR(255) NOT NULL, PRIMARY KEY (id)) ENGINE=InnoDB");
+        jdbcTemplate.execute("CREATE TABLE pages (id INTEGER NOT NULL, code INTEGER NOT NULL, content LONGTEXT, "
+                + "path VARCHAR(255) NOT NULL, site_id INTEGER NOT NULL, PRIMARY KEY (id), "
+                + "CONSTRAINT UK_path_site UNIQUE (path, site_id), KEY idx_indexes_page_id (path), "
+                + "CONSTRAINT FK_pages_site FOREIGN KEY (site_id) REFERENCES site (id)) ENGINE=InnoDB");
+        jdbcTemplate.execute("CREATE TABLE lemmas (id BIGINT NOT NULL AUTO_INCREMENT, frequency INTEGER NOT NULL, "
+                + "lemma VARCHAR(255) NOT NULL, site_id INTEGER NOT NULL, PRIMARY KEY (id), "
+                + "CONSTRAINT FK_lemmas_site FOREIGN KEY (site_id) REFERENCES site (id) ON DELETE CASCADE) ENGINE=InnoDB");
+        jdbcTemplate.execute("CREATE TABLE indexes_table (id INTEGER NOT NULL AUTO_INCREMENT, rank_lemmas FLOAT NOT NULL, "
+                + "lemma_id BIGINT NOT NULL, page_id INTEGER NOT NULL, PRIMARY KEY (id), "
+                + "CONSTRAINT fk_lemma_id FOREIGN KEY (lemma_id) REFERENCES lemmas (id) ON DELETE CASCADE, "
+                + "CONSTRAINT fk_page_id FOREIGN KEY (page_id) REFERENCES pages (id) ON DELETE CASCADE) ENGINE=InnoDB");
+
+        jdbcTemplate.update("INSERT INTO hibernate_sequence VALUES (3)");
+        jdbcTemplate.update("INSERT INTO site (id, name, status, status_time, url) "
+                + "VALUES (1, 'site', 'INDEXED', NOW(), 'https://site.test')");
+        jdbcTemplate.update("INSERT INTO pages (id, code, content, path, site_id) VALUES (1, 200, '<html>one</html>', '/', 1), "
+                + "(2, 200, '<html>two</html>', '/two', 1)");
+        jdbcTemplate.update("INSERT INTO lemmas (id, frequency, lemma, site_id) VALUES (1, 1, 'слово', 1), "
+                + "(2, 1, 'слово', 1), (3, 2, 'дом', 1)");
+        jdbcTemplate.update("INSERT INTO indexes_table (rank_lemmas, lemma_id, page_id) VALUES (1, 1, 1), (2, 2, 2), "
+                + "(1, 3, 1), (1, 3, 2)");
+    }
+
+    @Test
+    void baselineDatabaseIsUpgradedToTheMappedSchema() {
+        Flyway.configure()
+                .dataSource(jdbcTemplate.getDataSource())
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        assertThat(columns("site")).containsAll(mappedColumns(SiteEntity.class));
+        assertThat(columns("pages")).containsAll(mappedColumns(PageEntity.class));
+        assertThat(columns("lemmas")).containsAll(mappedColumns(LemmaEntity.class));
+        assertThat(columns("indexes_table")).contains("site_id", "page_id", "lemma_id", "rank_lemmas");
+        assertThat(jdbcTemplate.queryForList("SELECT COUNT(*) FROM information_schema.STATISTICS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'lemmas' AND INDEX_NAME = 'uk_lemmas_site_lemma' "
+                + "AND NON_UNIQUE = 0", Integer.class)).containsExactly(2);
+
+        List<Map<String, Object>> lemmas = jdbcTemplate.queryForList("SELECT id, lemma, frequency FROM lemmas ORDER BY id");
+        assertThat(lemmas).extracting(row -> row.get("lemma")).containsExactly("слово", "дом");
+        assertThat(lemmas).extracting(row -> ((Number) row.get("frequency")).intValue()).containsExactly(2, 2);
+        assertThat(jdbcTemplate.queryForList("SELECT DISTINCT lemma_id FROM indexes_table ORDER BY lemma_id", Long.class))
+                .containsExactly(1L, 3L);
+        assertThat(jdbcTemplate.queryForList("SELECT DISTINCT site_id FROM indexes_table", Integer.class))
+                .containsExactly(1);
+        assertThat(jdbcTemplate.queryForList("SELECT path FROM pages ORDER BY id", String.class))
+                .containsExactly("/", "/two");
+
+        jdbcTemplate.update("INSERT INTO pages (site_id, path, code) VALUES (1, '/three', 200)");
+        assertThat(jdbcTemplate.queryForObject("SELECT MAX(id) FROM pages", Integer.class)).isEqualTo(3);
+    }
+
+    private List<String> columns(String table) {
+        return jdbcTemplate.queryForList("SELECT COLUMN_NAME FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?", String.class, table);
+    }
+
+    private static List<String> mappedColumns(Class<?> entity) {
+        List<String> columns = new ArrayList<>();
+        for (Field field : entity.getDeclaredFields()) {
+            Column column = field.getAnnotation(Column.class);
+            JoinColumn joinColumn = field.getAnnotation(JoinColumn.class);
+            if (column != null) {
+                columns.add(column.name().isEmpty() ? field.getName() : column.name());
+            } else if (joinColumn != null) {
+                columns.add(joinColumn.name());
+            }
+        }
+        return columns;
+    }
+}
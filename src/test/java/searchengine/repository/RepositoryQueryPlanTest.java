@@ -0,0 +1,189 @@
+package searchengine.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import searchengine.model.SiteEntity;
+import searchengine.services.indexing.SiteGenerations;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Runs EXPLAIN on every native @Query of the repositories against a MySQL schema built by the
+ * Flyway migrations and filled with enough rows that the optimizer prefers indexes where they
+ * exist, and fails on any full scan of pages, lemmas or indexes_table.
+ */
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RepositoryQueryPlanTest {
+
+    private static final List<Class<?>> REPOSITORIES = List.of(IndexRepository.class, LemmaRepository.class,
+            PageRepository.class, SiteRepository.class);
+    private static final Set<String> LARGE_TABLES = Set.of("pages", "lemmas", "indexes_table");
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+    private static final int SITES = 20;
+    private static final int PAGES_PER_SITE = 200;
+    private static final int LEMMAS_PER_SITE = 100;
+    private static final int LEMMAS_PER_PAGE = 10;
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withUrlParam("rewriteBatchedStatements", "true");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SiteRepository siteRepository;
+
+    @BeforeEach
+    void fillTables() {
+        Integer sites = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM site", Integer.class);
+        if (sites != null && sites > 0) {
+            return;
+        }
+        List<Object[]> siteRows = new ArrayList<>();
+        for (int site = 1; site <= SITES; site++) {
+            siteRows.add(new Object[]{site, "INDEXED", new Timestamp(System.currentTimeMillis()),
+                    "https://site" + site + ".test/", "site " + site});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO site (id, status, status_time, url, name) VALUES (?, ?, ?, ?, ?)", siteRows);
+        SiteGenerations siteGenerations = new SiteGenerations(siteRepository, jdbcTemplate);
+        for (SiteEntity siteEntity : siteRepository.findAll()) {
+            siteGenerations.createStorage(siteEntity);
+        }
+        siteGenerations.shutdown();
+        List<Object[]> pageRows = new ArrayList<>();
+        List<Object[]> lemmaRows = new ArrayList<>();
+        List<Object[]> indexRows = new ArrayList<>();
+        for (int site = 1; site <= SITES; site++) {
+            for (int page = 0; page < PAGES_PER_SITE; page++) {
+                int pageId = (site - 1) * PAGES_PER_SITE + page + 1;
+                pageRows.add(new Object[]{pageId, site, "/page" + page + "/", 200, (long) pageId * 0x9E3779B97F4A7C15L});
+                for (int i = 0; i < LEMMAS_PER_PAGE; i++) {
+                    indexRows.add(new Object[]{site, pageId, lemmaId(site, (page * 7 + i * 13) % LEMMAS_PER_SITE), 1 + i});
+                }
+            }
+            for (int lemma = 0; lemma < LEMMAS_PER_SITE; lemma++) {
+                lemmaRows.add(new Object[]{lemmaId(site, lemma), "lemma" + lemma, site, 1 + lemma % 50});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO pages (id, site_id, path, code, simhash) VALUES (?, ?, ?, ?, ?)", pageRows);
+        jdbcTemplate.batchUpdate("INSERT INTO lemmas (id, lemma, site_id, frequency) VALUES (?, ?, ?, ?)", lemmaRows);
+        jdbcTemplate.batchUpdate("INSERT INTO indexes_table (site_id, page_id, lemma_id, rank_lemmas) VALUES (?, ?, ?, ?)", indexRows);
+        jdbcTemplate.execute("ANALYZE TABLE site, pages, lemmas, indexes_table");
+    }
+
+    @Test
+    void nativeQueriesDoNotScanLargeTables() {
+        Map<String, String> queries = nativeQueries();
+        assertThat(queries).isNotEmpty();
+        List<String> fullScans = new ArrayList<>();
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            for (Map<String, Object> row : jdbcTemplate.queryForList("EXPLAIN " + query.getValue())) {
+                Object table = row.get("table");
+                if ("ALL".equals(row.get("type")) && table != null && LARGE_TABLES.contains(table.toString())) {
+                    fullScans.add(query.getKey() + " scans " + table + ": " + query.getValue());
+                }
+            }
+        }
+        assertThat(fullScans).isEmpty();
+    }
+
+    private Map<String, String> nativeQueries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                Query query = method.getAnnotation(Query.class);
+                if (query != null && query.nativeQuery()) {
+                    queries.put(repository.getSimpleName() + "." + method.getName(), bind(method, query.value()));
+                }
+            }
+        }
+        return queries;
+    }
+
+    private String bind(Method method, String sql) {
+        Map<String, Parameter> parameters = new LinkedHashMap<>();
+        for (Parameter parameter : method.getParameters()) {
+            Param param = parameter.getAnnotation(Param.class);
+            parameters.put(param != null ? param.value() : parameter.getName(), parameter);
+        }
+        Matcher matcher = NAMED_PARAMETER.matcher(sql);
+        StringBuilder bound = new StringBuilder();
+        while (matcher.find()) {
+            Parameter parameter = parameters.get(matcher.group(1));
+            if (parameter == null) {
+                fail(method.getName() + " uses :" + matcher.group(1) + " without a matching @Param");
+            }
+            String value = sampleValue(method, matcher.group(1));
+            matcher.appendReplacement(bound, Matcher.quoteReplacement(
+                    List.class.isAssignableFrom(parameter.getType()) ? "(" + value + ")" : value));
+        }
+        matcher.appendTail(bound);
+        return bound.toString();
+    }
+
+    /**
+     * Values of one site in the middle of the data; a parameter name not listed here fails the
+     * test so a new query cannot silently go unchecked.
+     */
+    private String sampleValue(Method method, String name) {
+        int site = SITES / 2;
+        switch (name) {
+            case "siteId":
+            case "siteIds":
+                return String.valueOf(site);
+            case "pageId":
+            case "pages":
+                return String.valueOf((site - 1) * PAGES_PER_SITE + 1);
+            case "lemmaId":
+                return String.valueOf(lemmaId(site, 1));
+            case "lemmaEntities":
+                return "'lemma1'";
+            case "url":
+                return "'https://site" + site + ".test/'";
+            case "limit":
+                return "10";
+            default:
+                return fail("No sample value for :" + name + " of " + method.getName());
+        }
+    }
+
+    private static long lemmaId(int site, int lemma) {
+        return (long) (site - 1) * LEMMAS_PER_SITE + lemma + 1;
+    }
+}
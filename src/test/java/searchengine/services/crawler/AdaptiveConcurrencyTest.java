@@ -0,0 +1,51 @@
+package searchengine.services.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyTest {
+
+    @Test
+    void healthyFastSiteReachesFullSpeed() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(2, 1, 16, 3.0, 500, 10_000);
+
+        for (int i = 0; i < 500; i++) {
+            concurrency.onResponse(200, 50);
+        }
+
+        assertThat(concurrency.getInterval()).isZero();
+        assertThat(concurrency.getLimit()).isEqualTo(16);
+    }
+
+    @Test
+    void overloadStretchesIntervalEvenAtNormalLatency() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(4, 1, 16, 3.0, 500, 10_000);
+
+        concurrency.onResponse(429, 50);
+
+        assertThat(concurrency.getInterval()).isEqualTo(1000);
+        assertThat(concurrency.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void overloadAtFullSpeedBacksOffFromZeroInterval() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(1, 1, 1, 3.0, 0, 10_000);
+
+        concurrency.onResponse(503, 50);
+
+        assertThat(concurrency.getInterval()).isPositive();
+    }
+
+    @Test
+    void intervalNeverExceedsMaximum() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(1, 1, 1, 3.0, 500, 2_000);
+
+        for (int i = 0; i < 20; i++) {
+            concurrency.onTimeout();
+        }
+
+        assertThat(concurrency.getInterval()).isEqualTo(2_000);
+        assertThat(concurrency.getLimit()).isEqualTo(1);
+    }
+}
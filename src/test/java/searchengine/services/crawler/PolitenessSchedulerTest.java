@@ -0,0 +1,27 @@
+package searchengine.services.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PolitenessSchedulerTest {
+
+    @Test
+    void crawlDelayIsAFloorUnderTheInterval() {
+        PolitenessScheduler politeness = new PolitenessScheduler(500);
+        politeness.setCrawlDelay("site.test", 2_000);
+
+        assertThat(politeness.tryAcquire("site.test", 0)).isZero();
+        assertThat(politeness.tryAcquire("site.test", 0)).isGreaterThan(1_000);
+        assertThat(politeness.tryAcquire("other.test", 0)).isZero();
+        assertThat(politeness.tryAcquire("other.test", 0)).isZero();
+    }
+
+    @Test
+    void nextSlotFollowsTheIntervalOfTheCaller() {
+        PolitenessScheduler politeness = new PolitenessScheduler(500);
+
+        assertThat(politeness.tryAcquire("site.test", 1_000)).isZero();
+        assertThat(politeness.tryAcquire("site.test", 0)).isGreaterThan(500);
+    }
+}
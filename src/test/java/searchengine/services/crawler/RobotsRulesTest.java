@@ -0,0 +1,128 @@
+package searchengine.services.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RobotsRulesTest {
+
+    @Test
+    void longestMatchDecides() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /shop\nAllow: /shop/catalog\n", "searchengine");
+
+        assertThat(rules.isAllowed("/shop/cart")).isFalse();
+        assertThat(rules.isAllowed("/shop/catalog/1")).isTrue();
+        assertThat(rules.isAllowed("/news")).isTrue();
+    }
+
+    @Test
+    void allowWinsTieOfEqualLength() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /page\nAllow: /page\n", "searchengine");
+
+        assertThat(rules.isAllowed("/page")).isTrue();
+    }
+
+    @Test
+    void wildcardMatchesAnySequence() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /*.php\nDisallow: /private*/edit\n", "searchengine");
+
+        assertThat(rules.isAllowed("/index.php")).isFalse();
+        assertThat(rules.isAllowed("/a/b/index.php?x=1")).isFalse();
+        assertThat(rules.isAllowed("/private-area/edit")).isFalse();
+        assertThat(rules.isAllowed("/private-area/view")).isTrue();
+    }
+
+    @Test
+    void dollarAnchorsPatternToEndOfPath() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /*.pdf$\n", "searchengine");
+
+        assertThat(rules.isAllowed("/docs/file.pdf")).isFalse();
+        assertThat(rules.isAllowed("/docs/file.pdf/")).isTrue();
+        assertThat(rules.isAllowed("/docs/file.pdf?download")).isTrue();
+    }
+
+    @Test
+    void specificAgentGroupReplacesWildcardGroup() {
+        String robotsTxt = "User-agent: *\nDisallow: /\n\nUser-agent: SearchEngine\nDisallow: /admin\nCrawl-delay: 2.5\n";
+
+        RobotsRules rules = RobotsRules.parse(robotsTxt, "searchengine");
+
+        assertThat(rules.isAllowed("/news")).isTrue();
+        assertThat(rules.isAllowed("/admin/users")).isFalse();
+        assertThat(rules.getCrawlDelayMillis()).isEqualTo(2500);
+    }
+
+    @Test
+    void consecutiveAgentLinesShareOneGroup() {
+        String robotsTxt = "User-agent: other\nUser-agent: searchengine\nDisallow: /tmp\nUser-agent: other\nDisallow: /\n";
+
+        RobotsRules rules = RobotsRules.parse(robotsTxt, "searchengine");
+
+        assertThat(rules.isAllowed("/tmp/file")).isFalse();
+        assertThat(rules.isAllowed("/news")).isTrue();
+    }
+
+    @Test
+    void emptyDisallowAllowsEverything() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow:\n", "searchengine");
+
+        assertThat(rules.isAllowed("/anything")).isTrue();
+    }
+
+    @Test
+    void commentsAreIgnoredAndSitemapsCollectedFromAnyGroup() {
+        String robotsTxt = "# comment\nUser-agent: *\nDisallow: /search # internal\n"
+                + "Sitemap: https://example.com/sitemap.xml\nUser-agent: other\nSitemap: https://example.com/news.xml\n";
+
+        RobotsRules rules = RobotsRules.parse(robotsTxt, "searchengine");
+
+        assertThat(rules.isAllowed("/search")).isFalse();
+        assertThat(rules.isAllowed("/search-tips")).isFalse();
+        assertThat(rules.getSitemaps())
+                .containsExactly("https://example.com/sitemap.xml", "https://example.com/news.xml");
+    }
+
+    @Test
+    void invalidCrawlDelayIsIgnored() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nCrawl-delay: soon\n", "searchengine");
+
+        assertThat(rules.getCrawlDelayMillis()).isZero();
+    }
+
+    @Test
+    void manyWildcardsDoNotBacktrackExponentially() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*b\n",
+                "searchengine");
+
+        assertThat(rules.isAllowed("/" + "a".repeat(200))).isTrue();
+        assertThat(rules.isAllowed("/" + "a".repeat(200) + "b")).isFalse();
+    }
+
+    @Test
+    void wildcardBeforeAnchorMatchesWholePath() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /search$\nDisallow: /*/print*$\n", "searchengine");
+
+        assertThat(rules.isAllowed("/search")).isFalse();
+        assertThat(rules.isAllowed("/search/")).isTrue();
+        assertThat(rules.isAllowed("/news/print/1")).isFalse();
+        assertThat(rules.isAllowed("/news/1")).isTrue();
+    }
+
+    @Test
+    void groupMustNameTheWholeProductToken() {
+        String robotsTxt = "User-agent: e\nDisallow: /\n\nUser-agent: search\nDisallow: /\n\nUser-agent: *\nDisallow: /tmp\n";
+
+        RobotsRules rules = RobotsRules.parse(robotsTxt, "searchengine");
+
+        assertThat(rules.isAllowed("/news")).isTrue();
+        assertThat(rules.isAllowed("/tmp/1")).isFalse();
+    }
+
+    @Test
+    void productTokenIsComparedWithoutVersionAndCase() {
+        RobotsRules rules = RobotsRules.parse("User-agent: SearchEngine/2.0\nDisallow: /admin\n",
+                "searchengine/1.0 (+https://example.com/bot)");
+
+        assertThat(rules.isAllowed("/admin")).isFalse();
+    }
+}
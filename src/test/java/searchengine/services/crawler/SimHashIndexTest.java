@@ -0,0 +1,96 @@
+package searchengine.services.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SimHashIndexTest {
+
+    private static final long FINGERPRINT = 0x9E3779B97F4A7C15L;
+
+    @Test
+    void findsFingerprintWithinMaxDistance() {
+        SimHashIndex index = new SimHashIndex(3);
+        index.add(FINGERPRINT, 1);
+
+        assertThat(index.findNearDuplicate(flip(FINGERPRINT, 0, 21, 42), 2)).isEqualTo(1);
+        assertThat(index.findNearDuplicate(flip(FINGERPRINT, 1, 2, 3), 2)).isEqualTo(1);
+    }
+
+    @Test
+    void ignoresFingerprintBeyondMaxDistance() {
+        SimHashIndex index = new SimHashIndex(3);
+        index.add(FINGERPRINT, 1);
+
+        assertThat(index.findNearDuplicate(flip(FINGERPRINT, 0, 16, 32, 48), 2)).isZero();
+    }
+
+    @Test
+    void pageIsNotItsOwnDuplicate() {
+        SimHashIndex index = new SimHashIndex(3);
+        index.add(FINGERPRINT, 1);
+
+        assertThat(index.findNearDuplicate(FINGERPRINT, 1)).isZero();
+    }
+
+    @Test
+    void removedPageIsNoLongerFound() {
+        SimHashIndex index = new SimHashIndex(3);
+        index.add(FINGERPRINT, 1);
+        index.add(FINGERPRINT, 2);
+
+        index.remove(FINGERPRINT, 1);
+
+        assertThat(index.findNearDuplicate(FINGERPRINT, 3)).isEqualTo(2);
+        index.remove(FINGERPRINT, 2);
+        assertThat(index.findNearDuplicate(FINGERPRINT, 3)).isZero();
+    }
+
+    @Test
+    void zeroDistanceMatchesOnlyExactFingerprint() {
+        SimHashIndex index = new SimHashIndex(0);
+        index.add(FINGERPRINT, 1);
+
+        assertThat(index.findNearDuplicate(FINGERPRINT, 2)).isEqualTo(1);
+        assertThat(index.findNearDuplicate(flip(FINGERPRINT, 63), 2)).isZero();
+    }
+
+    @Test
+    void findsFingerprintWithBitsFlippedInAllButOneBandAtMaxDistance() {
+        SimHashIndex index = new SimHashIndex(SimHashIndex.MAX_DISTANCE);
+        index.add(FINGERPRINT, 1);
+
+        assertThat(index.findNearDuplicate(flip(FINGERPRINT, 0, 9, 18, 27, 36, 45, 54), 2)).isEqualTo(1);
+        assertThat(index.findNearDuplicate(flip(FINGERPRINT, 7, 15, 23, 31, 39, 47, 55, 63), 2)).isZero();
+    }
+
+    @Test
+    void rejectsDistanceTheBandsCannotGuarantee() {
+        assertThatThrownBy(() -> new SimHashIndex(SimHashIndex.MAX_DISTANCE + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SimHashIndex(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void removeAllDropsPagesWithoutTheirFingerprints() {
+        SimHashIndex index = new SimHashIndex(3);
+        index.add(FINGERPRINT, 1);
+        index.add(flip(FINGERPRINT, 5), 2);
+        index.add(flip(FINGERPRINT, 40), 3);
+
+        index.removeAll(Set.of(1, 2));
+
+        assertThat(index.findNearDuplicate(FINGERPRINT, 4)).isEqualTo(3);
+    }
+
+    private static long flip(long fingerprint, int... bits) {
+        for (int bit : bits) {
+            fingerprint ^= 1L << bit;
+        }
+        return fingerprint;
+    }
+}
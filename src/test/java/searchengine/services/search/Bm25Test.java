@@ -0,0 +1,45 @@
+package searchengine.services.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class Bm25Test {
+
+    @Test
+    void rareLemmaHasHigherIdf() {
+        assertThat(Bm25.idf(1000, 1)).isGreaterThan(Bm25.idf(1000, 100));
+        assertThat(Bm25.idf(1000, 100)).isGreaterThan(Bm25.idf(1000, 1000));
+    }
+
+    @Test
+    void idfStaysPositiveForLemmaOnEveryPage() {
+        assertThat(Bm25.idf(10, 10)).isPositive();
+        assertThat(Bm25.idf(10, 10)).isCloseTo((float) Math.log(1 + 0.5 / 10.5), within(1e-6f));
+    }
+
+    @Test
+    void termWeightSaturatesWithRank() {
+        float once = Bm25.termWeight(1);
+        float twice = Bm25.termWeight(2);
+        float often = Bm25.termWeight(1000);
+
+        assertThat(twice).isGreaterThan(once);
+        assertThat(twice - once).isGreaterThan(often - Bm25.termWeight(999));
+        assertThat(often).isLessThan(2.2f);
+        assertThat(Bm25.termWeight(0)).isZero();
+    }
+
+    @Test
+    void longerPageWeighsLess() {
+        assertThat(Bm25.termWeight(3, 50, 100)).isGreaterThan(Bm25.termWeight(3, 100, 100));
+        assertThat(Bm25.termWeight(3, 100, 100)).isGreaterThan(Bm25.termWeight(3, 400, 100));
+    }
+
+    @Test
+    void averageLengthPageMatchesLengthFreeWeight() {
+        assertThat(Bm25.termWeight(3, 100, 100)).isCloseTo(Bm25.termWeight(3), within(1e-6f));
+        assertThat(Bm25.termWeight(3, 100, 0)).isCloseTo(Bm25.termWeight(3), within(1e-6f));
+    }
+}
@@ -0,0 +1,80 @@
+package searchengine.services.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static searchengine.services.search.PostingListTest.postings;
+
+class IntersectionTest {
+
+    private static final int PAGE_COUNT = 100;
+
+    @Test
+    void findsPagesPresentInEveryList() {
+        Map<Integer, Float> matches = match(postings(1, 3, 5, 7, 9, 11), postings(3, 4, 9, 11, 12), postings(2, 3, 11));
+
+        assertThat(matches).containsOnlyKeys(3, 11);
+    }
+
+    @Test
+    void scoresMatchAsSumOfIdfTimesWeight() {
+        PostingList rare = postings(5);
+        PostingList common = postings(1, 2, 3, 4, 5, 6);
+
+        Map<Integer, Float> matches = match(rare, common);
+
+        float expected = Bm25.idf(PAGE_COUNT, 1) * rare.weight(0) + Bm25.idf(PAGE_COUNT, 6) * common.weight(4);
+        assertThat(matches.get(5)).isCloseTo(expected, within(1e-6f));
+    }
+
+    @Test
+    void stopsWhenAnyListIsExhausted() {
+        assertThat(match(postings(1, 2, 3), postings(4, 5, 6, 7))).isEmpty();
+        assertThat(match(postings(10, 20), postings(1, 2, 3, 10))).containsOnlyKeys(10);
+        assertThat(match(postings(1, 2), PostingList.EMPTY)).isEmpty();
+    }
+
+    @Test
+    void singleListMatchesAllItsPages() {
+        assertThat(match(postings(2, 4, 8))).containsOnlyKeys(2, 4, 8);
+    }
+
+    @Test
+    void matchesBruteForceOnRandomLists() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 200; trial++) {
+            List<PostingList> lists = new ArrayList<>();
+            TreeSet<Integer> expected = null;
+            int listCount = 1 + random.nextInt(4);
+            for (int j = 0; j < listCount; j++) {
+                TreeSet<Integer> pageIds = new TreeSet<>();
+                int size = random.nextInt(j == 0 ? 20 : 300);
+                while (pageIds.size() < size) {
+                    pageIds.add(1 + random.nextInt(500));
+                }
+                lists.add(postings(pageIds.stream().mapToInt(Integer::intValue).toArray()));
+                if (expected == null) {
+                    expected = pageIds;
+                } else {
+                    expected.retainAll(pageIds);
+                }
+            }
+
+            assertThat(match(lists.toArray(new PostingList[0])).keySet()).containsExactlyElementsOf(expected);
+        }
+    }
+
+    private static Map<Integer, Float> match(PostingList... lists) {
+        Map<Integer, Float> matches = new LinkedHashMap<>();
+        Intersection.forEachMatch(List.of(lists), PAGE_COUNT, matches::put);
+        return matches;
+    }
+}
@@ -0,0 +1,108 @@
+package searchengine.services.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostingListTest {
+
+    @Test
+    void advanceReturnsFirstIndexNotBelowTarget() {
+        PostingList list = postings(2, 4, 6, 8, 10, 12, 14, 16, 18, 20);
+
+        assertThat(list.advance(0, 1)).isZero();
+        assertThat(list.advance(0, 2)).isZero();
+        assertThat(list.advance(0, 7)).isEqualTo(3);
+        assertThat(list.advance(2, 8)).isEqualTo(3);
+        assertThat(list.advance(0, 19)).isEqualTo(9);
+        assertThat(list.advance(0, 20)).isEqualTo(9);
+    }
+
+    @Test
+    void advanceDoesNotMoveBackwards() {
+        PostingList list = postings(2, 4, 6, 8);
+
+        assertThat(list.advance(3, 2)).isEqualTo(3);
+    }
+
+    @Test
+    void advancePastTheEndReturnsSize() {
+        PostingList list = postings(2, 4, 6, 8, 10, 12, 14, 16, 18, 20);
+
+        assertThat(list.advance(0, 21)).isEqualTo(list.size());
+        assertThat(list.advance(9, 21)).isEqualTo(list.size());
+        assertThat(list.advance(list.size(), 5)).isEqualTo(list.size());
+        assertThat(PostingList.EMPTY.advance(0, 1)).isZero();
+    }
+
+    @Test
+    void advanceMatchesLinearScan() {
+        int[] pageIds = new int[1000];
+        for (int i = 0; i < pageIds.length; i++) {
+            pageIds[i] = i * 3 + 1;
+        }
+        PostingList list = postings(pageIds);
+
+        for (int from = 0; from < pageIds.length; from += 37) {
+            for (int target = 0; target < pageIds.length * 3 + 5; target += 11) {
+                int expected = from;
+                while (expected < pageIds.length && pageIds[expected] < target) {
+                    expected++;
+                }
+                assertThat(list.advance(from, target)).as("from %d to %d", from, target).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void withInsertsInPageIdOrderAndReplacesWeight() {
+        PostingList list = postings(2, 6);
+
+        PostingList inserted = list.with(4, 0.5f).with(8, 0.25f).with(1, 0.75f);
+        PostingList replaced = inserted.with(4, 2f);
+
+        assertThat(pageIds(inserted)).containsExactly(1, 2, 4, 6, 8);
+        assertThat(inserted.weight(inserted.indexOf(4))).isEqualTo(0.5f);
+        assertThat(replaced.weight(replaced.indexOf(4))).isEqualTo(2f);
+        assertThat(pageIds(list)).containsExactly(2, 6);
+    }
+
+    @Test
+    void withoutRemovesPageAndKeepsTheRest() {
+        PostingList list = postings(2, 4, 6);
+
+        assertThat(pageIds(list.without(4))).containsExactly(2, 6);
+        assertThat(list.without(5)).isSameAs(list);
+        assertThat(pageIds(list)).containsExactly(2, 4, 6);
+    }
+
+    @Test
+    void builderWeightsRanksWithBm25() {
+        PostingList.Builder builder = new PostingList.Builder();
+        for (int pageId = 1; pageId <= 20; pageId++) {
+            builder.add(pageId, pageId);
+        }
+
+        PostingList list = builder.build();
+
+        assertThat(list.size()).isEqualTo(20);
+        assertThat(list.weight(0)).isEqualTo(Bm25.termWeight(1));
+        assertThat(list.weight(19)).isEqualTo(Bm25.termWeight(20));
+    }
+
+    static PostingList postings(int... pageIds) {
+        PostingList.Builder builder = new PostingList.Builder();
+        for (int pageId : pageIds) {
+            builder.add(pageId, 1);
+        }
+        return builder.build();
+    }
+
+    private static int[] pageIds(PostingList list) {
+        int[] pageIds = new int[list.size()];
+        for (int i = 0; i < pageIds.length; i++) {
+            pageIds[i] = list.pageId(i);
+        }
+        return pageIds;
+    }
+}
@@ -0,0 +1,69 @@
+package searchengine.services.search;
+
+import org.junit.jupiter.api.Test;
+import searchengine.dto.api_search.ApiSearchResponse;
+import searchengine.services.indexing.PageReindexedEvent;
+import searchengine.util.PropertiesProject;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+    private static final String SITE = "https://site.ru/";
+    private static final String OTHER_SITE = "https://other.ru/";
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    @Test
+    void reindexedPageDropsOnlyItsSiteAndAllSitesEntries() {
+        SearchResultCache cache = newCache();
+        search(cache, SITE);
+        search(cache, OTHER_SITE);
+        search(cache, null);
+
+        cache.onPageReindexed(new PageReindexedEvent(1, SITE, "Site", 10, Map.of()));
+
+        search(cache, SITE);
+        search(cache, OTHER_SITE);
+        search(cache, null);
+        assertThat(searches).hasValue(5);
+    }
+
+    @Test
+    void responseComputedDuringInvalidationIsNotServedLater() {
+        SearchResultCache cache = newCache();
+        cache.get(Set.of("слово"), SITE, 0, 10, () -> {
+            searches.incrementAndGet();
+            cache.invalidate(SITE);
+            return successfulResponse();
+        });
+
+        search(cache, SITE);
+
+        assertThat(searches).hasValue(2);
+    }
+
+    private void search(SearchResultCache cache, String url) {
+        cache.get(Set.of("слово"), url, 0, 10, () -> {
+            searches.incrementAndGet();
+            return successfulResponse();
+        });
+    }
+
+    private static ApiSearchResponse successfulResponse() {
+        ApiSearchResponse response = new ApiSearchResponse();
+        response.setResult(true);
+        return response;
+    }
+
+    private static SearchResultCache newCache() {
+        PropertiesProject propertiesProject = new PropertiesProject();
+        propertiesProject.setSearchCacheCapacity(64);
+        propertiesProject.setSearchCacheTtl(60_000);
+        return new SearchResultCache(propertiesProject);
+    }
+}
@@ -0,0 +1,103 @@
+package searchengine.services.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopHitsTest {
+
+    private static final SearchSite SITE = new SearchSite("https://site.test/", "site");
+
+    @Test
+    void keepsBestScoresInDescendingOrder() {
+        TopHits topHits = new TopHits(3);
+        float[] scores = {0.5f, 2f, 0.1f, 3f, 1f, 2.5f};
+        for (int i = 0; i < scores.length; i++) {
+            topHits.offer(SITE, i + 1, scores[i]);
+        }
+
+        assertThat(scoresOf(topHits)).containsExactly(3f, 2.5f, 2f);
+        assertThat(topHits.sortedDescending()).extracting(PageHit::getPageId).containsExactly(4, 6, 2);
+    }
+
+    @Test
+    void countsEveryOfferedHit() {
+        TopHits topHits = new TopHits(2);
+        for (int i = 0; i < 10; i++) {
+            topHits.offer(SITE, i, i);
+        }
+
+        assertThat(topHits.getTotal()).isEqualTo(10);
+        assertThat(topHits.sortedDescending()).hasSize(2);
+    }
+
+    @Test
+    void zeroCapacityOnlyCounts() {
+        TopHits topHits = new TopHits(0);
+        topHits.offer(SITE, 1, 1f);
+
+        assertThat(topHits.getTotal()).isEqualTo(1);
+        assertThat(topHits.sortedDescending()).isEmpty();
+    }
+
+    @Test
+    void growsPastInitialSizeUpToCapacity() {
+        TopHits topHits = new TopHits(100);
+        for (int i = 0; i < 1000; i++) {
+            topHits.offer(SITE, i, i);
+        }
+
+        List<PageHit> hits = topHits.sortedDescending();
+        assertThat(hits).hasSize(100);
+        assertThat(hits.get(0).getScore()).isEqualTo(999f);
+        assertThat(hits.get(99).getScore()).isEqualTo(900f);
+    }
+
+    @Test
+    void hugeCapacityDoesNotAllocateUpFront() {
+        TopHits topHits = new TopHits(Integer.MAX_VALUE);
+        topHits.offer(SITE, 1, 1f);
+
+        assertThat(topHits.sortedDescending()).hasSize(1);
+    }
+
+    @Test
+    void forWindowRetainsOneExtraPageWithoutOverflow() {
+        TopHits topHits = TopHits.forWindow(10, 5);
+        for (int i = 0; i < 100; i++) {
+            topHits.offer(SITE, i, i);
+        }
+
+        assertThat(topHits.sortedDescending()).hasSize(20);
+        assertThat(TopHits.forWindow(Integer.MAX_VALUE, Integer.MAX_VALUE).sortedDescending()).isEmpty();
+    }
+
+    @Test
+    void matchesSortingOnRandomScores() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 50; trial++) {
+            int capacity = 1 + random.nextInt(40);
+            TopHits topHits = new TopHits(capacity);
+            List<Float> scores = new ArrayList<>();
+            int offered = random.nextInt(200);
+            for (int i = 0; i < offered; i++) {
+                float score = random.nextFloat();
+                scores.add(score);
+                topHits.offer(SITE, i, score);
+            }
+            scores.sort(Collections.reverseOrder());
+
+            assertThat(scoresOf(topHits)).containsExactlyElementsOf(scores.subList(0, Math.min(capacity, scores.size())));
+        }
+    }
+
+    private static List<Float> scoresOf(TopHits topHits) {
+        return topHits.sortedDescending().stream().map(PageHit::getScore).collect(Collectors.toList());
+    }
+}
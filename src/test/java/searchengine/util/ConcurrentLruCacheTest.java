@@ -0,0 +1,87 @@
+package searchengine.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentLruCacheTest {
+
+    @Test
+    void loadsOnMissAndServesHit() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(16);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get(1, key -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(cache.get(1, key -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAndCountsIt() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(32);
+        cache.get(0, key -> "a");
+        cache.get(16, key -> "b");
+        cache.get(0, key -> "reloaded");
+
+        cache.get(32, key -> "c");
+
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.get(0, key -> "reloaded")).isEqualTo("a");
+        assertThat(cache.get(16, key -> "reloaded")).isEqualTo("reloaded");
+        assertThat(cache.getEvictions()).isEqualTo(2);
+        assertThat(cache.getExpirations()).isZero();
+    }
+
+    @Test
+    void invalidValueIsReloadedAndCountedAsExpired() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(16);
+        cache.get(1, key -> "stale");
+
+        String value = cache.get(1, key -> "fresh", cached -> !cached.equals("stale"));
+
+        assertThat(value).isEqualTo("fresh");
+        assertThat(cache.getExpirations()).isEqualTo(1);
+        assertThat(cache.getEvictions()).isZero();
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.get(1, key -> "again", cached -> true)).isEqualTo("fresh");
+    }
+
+    @Test
+    void nullIsNotCached() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(16);
+        cache.get(1, key -> null);
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(1, key -> "loaded")).isEqualTo("loaded");
+    }
+
+    @Test
+    void invalidateAllEmptiesWithoutCountingEvictions() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(16);
+        for (int i = 0; i < 10; i++) {
+            cache.get(i, key -> "v" + key);
+        }
+
+        cache.invalidateAll();
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getEvictions()).isZero();
+    }
+
+    @Test
+    void sizeStaysWithinCapacity() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(64);
+        for (int i = 0; i < 1000; i++) {
+            cache.get(i, key -> "v" + key);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(cache.getCapacity());
+        assertThat(cache.getEvictions()).isEqualTo(1000 - cache.size());
+    }
+}
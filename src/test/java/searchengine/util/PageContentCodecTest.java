@@ -0,0 +1,58 @@
+package searchengine.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageContentCodecTest {
+
+    private static final String HTML = "<!DOCTYPE html><html><head><title>Афиша</title></head><body><p>Спектакль</p></body></html>";
+
+    @Test
+    void newRowsArePlainDeflateAndReadBack() {
+        byte[] stored = PageContentCodec.compress(HTML);
+
+        assertThat(stored[0]).isEqualTo((byte) 2);
+        assertThat(PageContentCodec.decompress(stored)).isEqualTo(HTML);
+    }
+
+    @Test
+    void rowsOfFirstFormatAreReadWithTheirDictionary() throws IOException {
+        byte[] stored = deflateWithDictionary(HTML.getBytes(StandardCharsets.UTF_8), dictionaryV1());
+
+        assertThat(PageContentCodec.decompress(stored)).isEqualTo(HTML);
+    }
+
+    @Test
+    void rowsStoredBeforeCompressionAreReadAsText() {
+        assertThat(PageContentCodec.decompress(HTML.getBytes(StandardCharsets.UTF_8))).isEqualTo(HTML);
+        assertThat(PageContentCodec.decompress(new byte[0])).isEmpty();
+    }
+
+    private static byte[] deflateWithDictionary(byte[] raw, byte[] dictionary) {
+        Deflater deflater = new Deflater();
+        deflater.setDictionary(dictionary);
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(1);
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            output.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return output.toByteArray();
+    }
+
+    private static byte[] dictionaryV1() throws IOException {
+        try (InputStream input = PageContentCodecTest.class.getResourceAsStream("/compression/page-dictionary-v1.txt")) {
+            return input.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package searchengine.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageDictionaryBuilderTest {
+
+    private static final String HEADER = "<!DOCTYPE html><html lang=\"ru\"><head><meta charset=\"utf-8\">"
+            + "<link rel=\"stylesheet\" href=\"/local/templates/main/styles.css\"></head><body><nav class=\"menu\">"
+            + "<a href=\"/afisha/\">Афиша</a><a href=\"/spektakli/\">Спектакли</a><a href=\"/truppa/\">Труппа</a></nav>";
+    private static final String FOOTER = "<footer class=\"footer\"><p>Москва, ул. Бакунинская, 1/2</p>"
+            + "<p>Касса театра работает ежедневно</p></footer></body></html>";
+
+    @Test
+    void keepsMarkupSharedByThePagesAndLeavesOutTheirOwnText() {
+        byte[] dictionary = PageDictionaryBuilder.build(pages(0, 20), 4096);
+        String text = new String(dictionary, StandardCharsets.ISO_8859_1);
+
+        assertThat(text).contains(latin1(FOOTER));
+        assertThat(text).contains(latin1("<nav class=\"menu\">"));
+        assertThat(text).doesNotContain(latin1("Страница 7"));
+        assertThat(dictionary.length).isLessThanOrEqualTo(4096);
+    }
+
+    @Test
+    void dictionaryShrinksPagesItWasNotBuiltFrom() {
+        byte[] dictionary = PageDictionaryBuilder.build(pages(0, 20), 4096);
+        byte[] page = pages(100, 1).get(0);
+
+        assertThat(PageDictionaryBuilder.deflatedSize(page, dictionary))
+                .isLessThan(PageDictionaryBuilder.deflatedSize(page, new byte[0]) / 2);
+    }
+
+    private static List<byte[]> pages(int from, int count) {
+        List<byte[]> pages = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            pages.add((HEADER + "<main><h1>Страница " + i + "</h1><p>Описание спектакля номер " + i * 7919
+                    + "</p></main>" + FOOTER).getBytes(StandardCharsets.UTF_8));
+        }
+        return pages;
+    }
+
+    private static String latin1(String text) {
+        return new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,37 @@
+package searchengine.util;
+
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageTextTest {
+
+    @Test
+    void takesTitleAndBodyText() {
+        PageText pageText = PageText.of(Jsoup.parse("<html><head><title>Театр</title></head>"
+                + "<body><p>Афиша</p><p>спектаклей</p></body></html>"));
+
+        assertThat(pageText.getTitle()).isEqualTo("Театр");
+        assertThat(pageText.getText()).isEqualTo("Афиша спектаклей");
+    }
+
+    @Test
+    void longTitleIsCutToColumnLength() {
+        String title = "Заголовок ".repeat(100);
+
+        PageText pageText = PageText.of(Jsoup.parse("<title>" + title + "</title><p>text</p>"));
+
+        assertThat(pageText.getTitle()).hasSize(PageText.MAX_TITLE_LENGTH);
+        assertThat(title).startsWith(pageText.getTitle());
+    }
+
+    @Test
+    void titleIsNotCutInsideSurrogatePair() {
+        String title = "a".repeat(PageText.MAX_TITLE_LENGTH - 1) + "😀😀";
+
+        PageText pageText = PageText.of(Jsoup.parse("<title>" + title + "</title>"));
+
+        assertThat(pageText.getTitle()).isEqualTo("a".repeat(PageText.MAX_TITLE_LENGTH - 1));
+    }
+}
@@ -0,0 +1,53 @@
+package searchengine.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimHashTest {
+
+    @Test
+    void textTooShortHasNoFingerprint() {
+        assertThat(SimHash.of("only a few words here")).isZero();
+        assertThat(SimHash.of("")).isZero();
+    }
+
+    @Test
+    void fingerprintIgnoresCaseAndPunctuation() {
+        String text = words(1, 60);
+
+        assertThat(SimHash.of(text.toUpperCase().replace(" ", ", "))).isEqualTo(SimHash.of(text));
+    }
+
+    @Test
+    void smallEditKeepsFingerprintClose() {
+        String text = words(1, 300);
+        String edited = text.replaceFirst("w\\d+", "changed");
+
+        assertThat(SimHash.distance(SimHash.of(text), SimHash.of(edited))).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void unrelatedTextsAreFarApart() {
+        assertThat(SimHash.distance(SimHash.of(words(1, 300)), SimHash.of(words(2, 300)))).isGreaterThan(10);
+    }
+
+    @Test
+    void distanceCountsDifferingBits() {
+        assertThat(SimHash.distance(0b1011L, 0b0001L)).isEqualTo(2);
+        assertThat(SimHash.distance(-1L, 0L)).isEqualTo(64);
+    }
+
+    private static String words(long seed, int count) {
+        Random random = new Random(seed);
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            words.add("w" + random.nextInt(10_000));
+        }
+        return String.join(" ", words);
+    }
+}
@@ -0,0 +1,96 @@
+package searchengine.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlCanonicalizerTest {
+
+    private static final String HOME = "https://example.com/";
+
+    private UrlCanonicalizer urlCanonicalizer;
+
+    @BeforeEach
+    void setUp() {
+        PropertiesProject propertiesProject = new PropertiesProject();
+        propertiesProject.setFileExtensions("pdf|PDF|docx?|DOCX?|jpe?g|JPE?G|m|M|[0-9]+");
+        urlCanonicalizer = new UrlCanonicalizer(propertiesProject);
+    }
+
+    @Test
+    void lowerCasesSchemeAndHostButNotPath() {
+        assertThat(urlCanonicalizer.canonicalize("HTTPS://Example.COM/News/Item"))
+                .isEqualTo("https://example.com/News/Item/");
+    }
+
+    @Test
+    void dropsWwwPrefixFragmentAndSurroundingBlanks() {
+        assertThat(urlCanonicalizer.canonicalize("  https://www.example.com/page#top\n"))
+                .isEqualTo("https://example.com/page/");
+    }
+
+    @Test
+    void homePageHasTheHostOfCanonicalLinks() {
+        assertThat(UrlCanonicalizer.homePageOf("HTTPS://WWW.Example.COM/News/Item?x=1"))
+                .isEqualTo(HOME)
+                .isEqualTo(ReworkString.getStartPage("https://Www.EXAMPLE.com"));
+        assertThat(UrlCanonicalizer.homePageOf("https://example.com:443/a")).isEqualTo(HOME);
+        assertThat(UrlCanonicalizer.homePageOf("ftp://example.com/")).isNull();
+        assertThat(urlCanonicalizer.canonicalize("https://WWW.Example.com/news")).startsWith(HOME);
+    }
+
+    @Test
+    void dropsOnlyTheDefaultPortOfTheScheme() {
+        assertThat(urlCanonicalizer.canonicalize("https://example.com:443/a")).isEqualTo("https://example.com/a/");
+        assertThat(urlCanonicalizer.canonicalize("http://example.com:80/a")).isEqualTo("http://example.com/a/");
+        assertThat(urlCanonicalizer.canonicalize("http://example.com:443/a")).isEqualTo("http://example.com:443/a/");
+        assertThat(urlCanonicalizer.canonicalize("https://example.com:8080")).isEqualTo("https://example.com:8080/");
+    }
+
+    @Test
+    void keepsQueryAndPercentEncodingAsTheyAre() {
+        assertThat(urlCanonicalizer.canonicalize("https://example.com/%D0%BD%D0%BE%D0%B2?q=a%20b"))
+                .isEqualTo("https://example.com/%D0%BD%D0%BE%D0%B2?q=a%20b/");
+    }
+
+    @Test
+    void rejectsNonHttpAndHostlessUrls() {
+        assertThat(urlCanonicalizer.canonicalize("mailto:user@example.com")).isNull();
+        assertThat(urlCanonicalizer.canonicalize("ftp://example.com/file")).isNull();
+        assertThat(urlCanonicalizer.canonicalize("https:///path")).isNull();
+        assertThat(urlCanonicalizer.canonicalize("https://www./")).isNull();
+    }
+
+    @Test
+    void pageLinkMustBeBelowTheHomePage() {
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/news/")).isTrue();
+        assertThat(urlCanonicalizer.isPageLink(HOME, HOME)).isFalse();
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://other.com/news/")).isFalse();
+        assertThat(urlCanonicalizer.isPageLink(HOME, null)).isFalse();
+    }
+
+    @Test
+    void pageLinkRejectsQueriesFragmentsAndOddCharacters() {
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/search?q=1/")).isFalse();
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/a#b/")).isFalse();
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/user@host/")).isFalse();
+    }
+
+    @Test
+    void pageLinkRejectsConfiguredFileExtensionsInAnyCase() {
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/files/report.pdf/")).isFalse();
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/files/report.Doc/")).isFalse();
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/files/report.docx/")).isFalse();
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/photo.jpeg/")).isFalse();
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/photo.jpg/")).isFalse();
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/archive.2024/")).isFalse();
+    }
+
+    @Test
+    void dotsInDirectoriesOrUnlistedExtensionsAreFine() {
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/v1.2/notes/")).isTrue();
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/page.html/")).isTrue();
+        assertThat(urlCanonicalizer.isPageLink(HOME, "https://example.com/file.mp/")).isTrue();
+    }
+}